@@ -24,7 +24,7 @@ dependencies {
   implementation("org.slf4j:slf4j-api:[2.0,3.0[")
 
   // git
-  api("org.eclipse.jgit:org.eclipse.jgit:[6.0,7.0[")
+  api("org.eclipse.jgit:org.eclipse.jgit:[6.5,7.0[")
 
   // util
   implementation("org.apache.commons:commons-lang3:[3.5,4.0[")
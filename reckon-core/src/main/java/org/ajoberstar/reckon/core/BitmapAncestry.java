@@ -0,0 +1,135 @@
+package org.ajoberstar.reckon.core;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.BitmapIndex;
+import org.eclipse.jgit.lib.BitmapIndex.BitmapBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Answers whether one commit is in the history of another using the pack's reachability bitmaps.
+ * <p>
+ * The history of a commit is found by walking from it until reaching commits that have a bitmap,
+ * which already include their whole history. In a freshly repacked repository that is usually
+ * immediate, otherwise only the commits since the last repack are walked. The history of each tip is
+ * kept, so repeated questions about the same tip (usually HEAD) are only lookups.
+ * <p>
+ * If the repository has no bitmap index, nothing is available and callers must walk instead.
+ * <p>
+ * This is intentionally package private.
+ */
+final class BitmapAncestry {
+  private static final Logger logger = LoggerFactory.getLogger(BitmapAncestry.class);
+
+  private final RevWalk walk;
+  private final BitmapIndex index;
+  private final Map<RevCommit, BitmapBuilder> histories = new HashMap<>();
+
+  private BitmapAncestry(RevWalk walk, BitmapIndex index) {
+    this.walk = walk;
+    this.index = index;
+  }
+
+  /**
+   * Creates an ancestry using the bitmap index of the walk's reader, if there is one.
+   */
+  public static BitmapAncestry of(RevWalk walk) {
+    try {
+      return new BitmapAncestry(walk, walk.getObjectReader().getBitmapIndex());
+    } catch (IOException e) {
+      logger.debug("Cannot read bitmap index. Continuing without it.", e);
+      return new BitmapAncestry(walk, null);
+    }
+  }
+
+  /**
+   * Whether a bitmap index is available for this repository.
+   */
+  public boolean isAvailable() {
+    return index != null;
+  }
+
+  /**
+   * Whether {@code commit} is in the history of {@code tip} (or is the tip). Must only be called if a
+   * bitmap index is available. This resets the walk.
+   */
+  public boolean isMergedInto(RevCommit commit, RevCommit tip) throws IOException {
+    var history = histories.get(tip);
+    if (history == null) {
+      history = findHistory(tip);
+      histories.put(tip, history);
+    }
+    return history.contains(commit);
+  }
+
+  private BitmapBuilder findHistory(RevCommit tip) throws IOException {
+    var filter = new ReachedFilter(index);
+    walk.reset();
+    try {
+      walk.setRevFilter(filter);
+      walk.markStart(tip);
+      while (walk.next() != null) {
+        // the filter accumulates everything reached
+      }
+      return filter.reached;
+    } finally {
+      walk.reset();
+      walk.setRevFilter(RevFilter.ALL);
+    }
+  }
+
+  /**
+   * Accumulates the commits reached by the walk, and everything in their bitmaps if they have one. The
+   * walk doesn't continue past any commit that was already reached.
+   */
+  private static final class ReachedFilter extends RevFilter {
+    private final BitmapIndex index;
+    private final BitmapBuilder reached;
+
+    public ReachedFilter(BitmapIndex index) {
+      this.index = index;
+      this.reached = index.newBitmapBuilder();
+    }
+
+    @Override
+    public boolean include(RevWalk walker, RevCommit commit) {
+      if (reached.contains(commit)) {
+        dontFollow(commit);
+        return false;
+      }
+
+      var bitmap = index.getBitmap(commit);
+      if (bitmap != null) {
+        reached.or(bitmap);
+        dontFollow(commit);
+      } else {
+        reached.addObject(commit, Constants.OBJ_COMMIT);
+      }
+      return true;
+    }
+
+    private static void dontFollow(RevCommit commit) {
+      for (var parent : commit.getParents()) {
+        parent.add(RevFlag.SEEN);
+      }
+    }
+
+    @Override
+    public RevFilter clone() {
+      return this;
+    }
+
+    @Override
+    public boolean requiresCommitBody() {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package org.ajoberstar.reckon.core;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectIdOwnerMap;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * A walk that counts the commits it holds in memory, so callers can {@link #dispose()} it when that
+ * exceeds a budget and continue from compact state of their own.
+ * <p>
+ * Commits that were released can be registered as forgotten. If the walk creates any of them again,
+ * it has revisited history the caller already moved past, and anything the caller decided about them
+ * may be stale.
+ * <p>
+ * This is intentionally package private.
+ */
+final class BudgetedRevWalk extends RevWalk {
+  private final int maxRetainedCommits;
+  private final InventoryMetrics metrics;
+
+  private int retainedCommits;
+  private ObjectIdOwnerMap<?> forgotten;
+  private boolean revisited;
+
+  public BudgetedRevWalk(ObjectReader reader, int maxRetainedCommits, InventoryMetrics metrics) {
+    super(reader);
+    this.maxRetainedCommits = maxRetainedCommits;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Whether more commits are held in memory than the budget allows.
+   */
+  public boolean isOverBudget() {
+    return retainedCommits > maxRetainedCommits;
+  }
+
+  /**
+   * Watches for any of the given commits being created again. Pass {@code null} to stop watching.
+   */
+  public void watchForgotten(ObjectIdOwnerMap<?> forgotten) {
+    this.forgotten = forgotten;
+    this.revisited = false;
+  }
+
+  /**
+   * Whether any watched commit was created again since watching started.
+   */
+  public boolean isRevisited() {
+    return revisited;
+  }
+
+  @Override
+  protected RevCommit createCommit(AnyObjectId id) {
+    retain(id);
+    return super.createCommit(id);
+  }
+
+  @Override
+  protected RevCommit lookupCommit(AnyObjectId id, int graphPos) {
+    // parents read from the commit-graph are created here instead
+    if (lookupOrNull(id) == null) {
+      retain(id);
+    }
+    return super.lookupCommit(id, graphPos);
+  }
+
+  private void retain(AnyObjectId id) {
+    retainedCommits++;
+    metrics.commitsRetained(retainedCommits);
+    if (forgotten != null && forgotten.contains(id)) {
+      revisited = true;
+    }
+  }
+
+  @Override
+  public void dispose() {
+    super.dispose();
+    retainedCommits = 0;
+  }
+}
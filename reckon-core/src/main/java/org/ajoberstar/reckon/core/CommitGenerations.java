@@ -0,0 +1,170 @@
+package org.ajoberstar.reckon.core;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraph;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraphLoader;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generation numbers of commits, read from the repository's commit-graph. A commit's generation is
+ * always higher than any of its parents', so a commit can only reach commits with a lower generation.
+ * This lets ancestry checks fail without walking, and lets walks visit children before parents
+ * without first reading all of history.
+ * <p>
+ * Commits added since the commit-graph was written have their generation calculated from their
+ * parents. If the repository has no commit-graph, no generations are available and every check is
+ * inconclusive. The same goes if the version of JGit in use can't read it, as the commit-graph is
+ * only exposed through JGit's internal packages.
+ * <p>
+ * This is intentionally package private.
+ */
+final class CommitGenerations {
+  private static final Logger logger = LoggerFactory.getLogger(CommitGenerations.class);
+
+  private final RevWalk walk;
+  private final CommitGraph graph;
+  private final Map<RevCommit, Integer> generations = new HashMap<>();
+
+  private CommitGenerations(RevWalk walk, CommitGraph graph) {
+    this.walk = walk;
+    this.graph = graph;
+  }
+
+  /**
+   * Creates a reader for the repository which provides its commit-graph, if it has one. JGit only
+   * reads commit-graphs when {@code core.commitGraph} is enabled, whereas Git reads them by default.
+   * <p>
+   * Recent versions of Git write chunks JGit can't read, like generation data. JGit skips them, but
+   * logs a warning about each ({@code unknown commit-graph chunk}) whenever a graph is loaded. The
+   * generations JGit does read are still correct, so the warning is harmless.
+   */
+  public static ObjectReader newReader(Repository repo) {
+    var reader = repo.newObjectReader();
+    try {
+      if (reader.getCommitGraph().isPresent() || !(repo.getObjectDatabase() instanceof ObjectDirectory)) {
+        return reader;
+      }
+
+      var objectsDir = ((ObjectDirectory) repo.getObjectDatabase()).getDirectory();
+      var graph = CommitGraphLoader.open(new File(objectsDir, Constants.INFO_COMMIT_GRAPH));
+      return new ObjectReader.Filter() {
+        @Override
+        protected ObjectReader delegate() {
+          return reader;
+        }
+
+        @Override
+        public Optional<CommitGraph> getCommitGraph() {
+          return Optional.of(graph);
+        }
+      };
+    } catch (FileNotFoundException e) {
+      return reader;
+    } catch (IOException e) {
+      logger.debug("Cannot read commit-graph. Continuing without it.", e);
+      return reader;
+    } catch (LinkageError e) {
+      // the loader is internal to JGit, so it may not be there in every version
+      logger.debug("Cannot load commit-graph with this version of JGit. Continuing without it.", e);
+      return reader;
+    }
+  }
+
+  /**
+   * Creates generations for the commits in the given walk, using its reader's commit-graph.
+   */
+  public static CommitGenerations of(RevWalk walk) {
+    try {
+      var graph = walk.getObjectReader().getCommitGraph()
+          // graphs written without generations can't be used to order anything
+          .filter(g -> g.getCommitCnt() > 0 && g.getCommitData(0).getGeneration() != Constants.COMMIT_GENERATION_NOT_COMPUTED)
+          .orElse(null);
+      return new CommitGenerations(walk, graph);
+    } catch (IOException e) {
+      logger.debug("Cannot read commit-graph. Continuing without it.", e);
+      return new CommitGenerations(walk, null);
+    } catch (LinkageError e) {
+      // the commit-graph is internal to JGit, so it may not be there in every version
+      logger.debug("Cannot read commit-graph with this version of JGit. Continuing without it.", e);
+      return new CommitGenerations(walk, null);
+    }
+  }
+
+  /**
+   * Whether generation numbers are available for this repository.
+   */
+  public boolean isAvailable() {
+    return graph != null;
+  }
+
+  /**
+   * Gets the generation of the commit. Must only be called if generations are available.
+   */
+  public int get(RevCommit commit) throws IOException {
+    var known = generations.get(commit);
+    if (known != null) {
+      return known;
+    }
+
+    // commits newer than the commit-graph are rare and near the tips, but don't recurse just in case
+    var pending = new ArrayDeque<RevCommit>();
+    pending.push(commit);
+    while (!pending.isEmpty()) {
+      var current = pending.peek();
+      if (generations.containsKey(current)) {
+        pending.pop();
+        continue;
+      }
+
+      var position = graph.findGraphPosition(current);
+      if (position >= 0) {
+        generations.put(current, graph.getCommitData(position).getGeneration());
+        pending.pop();
+        continue;
+      }
+
+      walk.parseHeaders(current);
+      var generation = 1;
+      var parentsKnown = true;
+      for (var parent : current.getParents()) {
+        var parentGeneration = generations.get(parent);
+        if (parentGeneration == null) {
+          pending.push(parent);
+          parentsKnown = false;
+        } else {
+          generation = Math.max(generation, parentGeneration + 1);
+        }
+      }
+      if (parentsKnown) {
+        generations.put(current, generation);
+        pending.pop();
+      }
+    }
+    return generations.get(commit);
+  }
+
+  /**
+   * Whether {@code from} could have {@code to} in its history. If this returns false, it definitely
+   * doesn't. If generations aren't available, this always returns true.
+   */
+  public boolean mayReach(RevCommit from, RevCommit to) throws IOException {
+    if (graph == null || from.equals(to)) {
+      return true;
+    }
+    return get(to) < get(from);
+  }
+}
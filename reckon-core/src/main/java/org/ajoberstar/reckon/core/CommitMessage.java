@@ -0,0 +1,57 @@
+package org.ajoberstar.reckon.core;
+
+import java.util.Optional;
+
+import org.eclipse.jgit.util.RawParseUtils;
+
+/**
+ * A commit message that may still be in its commit's raw bytes, so parsers that can read what they
+ * need from the bytes never have to decode it.
+ * <p>
+ * This is intentionally package private.
+ */
+final class CommitMessage {
+  private final byte[] rawCommit;
+  private String text;
+
+  private CommitMessage(byte[] rawCommit, String text) {
+    this.rawCommit = rawCommit;
+    this.text = text;
+  }
+
+  public static CommitMessage ofText(String text) {
+    return new CommitMessage(null, text);
+  }
+
+  /**
+   * A message still in the raw bytes of its commit, as from {@code RevCommit#getRawBuffer()}.
+   */
+  public static CommitMessage ofRawCommit(byte[] rawCommit) {
+    return new CommitMessage(rawCommit, null);
+  }
+
+  /**
+   * The full message, decoded the first time it's asked for.
+   */
+  public synchronized String getText() {
+    if (text == null) {
+      text = decode(rawCommit);
+    }
+    return text;
+  }
+
+  public Optional<Scope> parse(CommitMessageScopeParser parser, boolean preV1) {
+    return rawCommit == null ? parser.parse(text, preV1) : parser.parseRawCommit(rawCommit, preV1);
+  }
+
+  /**
+   * Decodes the full message of a raw commit, as {@code RevCommit#getFullMessage()} does.
+   */
+  public static String decode(byte[] rawCommit) {
+    var start = RawParseUtils.commitMessage(rawCommit, 0);
+    if (start < 0) {
+      return "";
+    }
+    return RawParseUtils.decode(RawParseUtils.guessEncoding(rawCommit), rawCommit, start, rawCommit.length);
+  }
+}
@@ -2,7 +2,6 @@ package org.ajoberstar.reckon.core;
 
 import java.util.Optional;
 import java.util.function.Function;
-import java.util.regex.Pattern;
 
 /**
  * A functional interface for parsing Git commit messages for Reckon scopes. The implementation can
@@ -12,43 +11,43 @@ import java.util.regex.Pattern;
 public interface CommitMessageScopeParser {
   Optional<Scope> parse(String messageBody, boolean preV1);
 
+  /**
+   * Parses the message of a commit still in its raw bytes, as from
+   * {@code RevCommit#getRawBuffer()}. By default, the message is decoded and passed to
+   * {@link #parse(String, boolean)}. Override this if the parser can find what it needs in the bytes
+   * without decoding the message.
+   *
+   * @param rawCommit the raw bytes of the commit, including its headers
+   * @param preV1 whether the project is currently pre-v1
+   * @return the scope the message indicates, if any
+   */
+  default Optional<Scope> parseRawCommit(byte[] rawCommit, boolean preV1) {
+    return parse(CommitMessage.decode(rawCommit), preV1);
+  }
+
+  /**
+   * Identifies how this parser reads messages, so the scopes it reads can be cached by commit. Two
+   * parsers may only share a fingerprint if they always read the same scope from the same message.
+   * Change the fingerprint whenever that changes. By default, parsers have no fingerprint and their
+   * scopes are never cached.
+   *
+   * @return the fingerprint of this parser, if its scopes can be cached
+   * @see CommitScopeCache
+   */
+  default Optional<String> getFingerprint() {
+    return Optional.empty();
+  }
+
   /**
    * Returns a parser that checks the message subject for a prefixed like so:
    * {@code <scope>(<area>): subject}. If the project is currently pre-v1, a prefix of {@code major: }
    * will be downgraded to {@code minor}, unless you use {@code major!: } with an exclamation point.
+   * Raw commits are matched without decoding their messages, where possible.
    * 
    * @return parser that reads scopes from subject prefixes
    */
   static CommitMessageScopeParser subjectPrefix() {
-    var pattern = Pattern.compile("^(major!|major|minor|patch)(?:\\(.*?\\))?: .+");
-    return (msg, preV1) -> {
-      var matcher = pattern.matcher(msg);
-
-      if (!matcher.find()) {
-        return Optional.empty();
-      }
-
-      Scope scope;
-      switch (matcher.group(1)) {
-        // the ! forces use of major, ignoring preV1 checks
-        case "major!":
-          scope = Scope.MAJOR;
-          break;
-        // otherwise we don't allow pre-v1 to bump to major
-        case "major":
-          scope = preV1 ? Scope.MINOR : Scope.MAJOR;
-          break;
-        case "minor":
-          scope = Scope.MINOR;
-          break;
-        case "patch":
-          scope = Scope.PATCH;
-          break;
-        default:
-          throw new AssertionError("Unhandled scope value matched by regex: " + matcher.group("scope"));
-      };
-      return Optional.of(scope);
-    };
+    return new SubjectPrefixParser();
   }
 
   /**
@@ -0,0 +1,47 @@
+package org.ajoberstar.reckon.core;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Where an inventory's commit messages come from. Sources that know more about the commits, such as
+ * their IDs, can find scopes without reading every message.
+ * <p>
+ * This is intentionally package private.
+ */
+@FunctionalInterface
+interface CommitMessageSource {
+  /**
+   * Streams the messages, reading each only as it's consumed. Close the stream when done with it.
+   */
+  Stream<CommitMessage> stream();
+
+  /**
+   * The IDs of the commits the messages are from, in the same order, if known.
+   */
+  default Optional<List<ObjectId>> getCommitIds() {
+    return Optional.empty();
+  }
+
+  /**
+   * Finds the most significant scope the parser reads from any of the messages.
+   */
+  default Optional<Scope> findScope(CommitMessageScopeParser parser, boolean preV1) {
+    try (var messages = stream()) {
+      var scopes = messages.flatMap(msg -> msg.parse(parser, preV1).stream()).iterator();
+      Scope max = null;
+      // nothing can outrank MAJOR, so there's no need to read any further
+      while (max != Scope.MAJOR && scopes.hasNext()) {
+        max = max(max, scopes.next());
+      }
+      return Optional.ofNullable(max);
+    }
+  }
+
+  static Scope max(Scope max, Scope scope) {
+    return max == null || scope.compareTo(max) > 0 ? scope : max;
+  }
+}
@@ -0,0 +1,57 @@
+package org.ajoberstar.reckon.core;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * A store of the scopes previously read from commit messages. Commits never change, so a parser
+ * always reads the same scope from the same commit, and only commits that haven't been seen before
+ * need their messages read. Keys are opaque fingerprints of the parser calculated by reckon.
+ *
+ * @see CommitMessageScopeParser#getFingerprint()
+ */
+public interface CommitScopeCache {
+  /**
+   * Loads the scopes stored under the given key, if any. Commits that were parsed without finding a
+   * scope map to an empty optional.
+   *
+   * @param key fingerprint of the parser
+   * @return the stored scopes by commit, or an empty map, if none were stored
+   */
+  Map<ObjectId, Optional<Scope>> load(String key);
+
+  /**
+   * Stores the scopes under the given key, alongside any already stored for that key, replacing the
+   * scopes of the same commits. To bound its size, a cache may drop the scopes that were stored
+   * longest ago, so the given scopes should include any still in use.
+   *
+   * @param key fingerprint of the parser
+   * @param scopes the scopes by commit to store
+   */
+  void store(String key, Map<ObjectId, Optional<Scope>> scopes);
+
+  /**
+   * Creates a cache that stores scopes as files in the given directory.
+   *
+   * @param directory the directory to store scopes in
+   * @return a file-backed cache
+   */
+  static CommitScopeCache ofDirectory(Path directory) {
+    return new FileCommitScopeCache(directory);
+  }
+
+  /**
+   * Creates a cache that stores scopes as files in the {@code reckon} directory of the given
+   * repository's Git directory (i.e. {@code .git/reckon}).
+   *
+   * @param repo the repository whose Git directory should hold the cache
+   * @return a file-backed cache
+   */
+  static CommitScopeCache ofRepository(Repository repo) {
+    return ofDirectory(repo.getDirectory().toPath().resolve("reckon"));
+  }
+}
@@ -0,0 +1,155 @@
+package org.ajoberstar.reckon.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores scopes as properties files in a directory, keyed by commit ID. Failures to read or write are
+ * logged and otherwise treated as a cache miss, since the scopes can always be parsed again.
+ * <p>
+ * Each file counts how many times it's been stored, and stamps every scope with the count when it
+ * was last stored. Stored scopes are merged into the ones already in the file, so scopes of other
+ * branches survive switching between them. Once there are more than the maximum, the scopes stored
+ * longest ago are dropped, though never the ones being stored, however many there are.
+ * <p>
+ * Merging reads and rewrites the file, so it's done while holding a lock, keeping concurrent builds
+ * (even in other processes) from losing each other's scopes.
+ * <p>
+ * This is intentionally package private.
+ */
+final class FileCommitScopeCache implements CommitScopeCache {
+  private static final Logger logger = LoggerFactory.getLogger(FileCommitScopeCache.class);
+
+  // bump this whenever the stored properties change meaning
+  private static final String FORMAT_VERSION = "2";
+  private static final String FILE_SUFFIX = ".scopes";
+  // one per parser that's in use, so there are rarely many
+  private static final int MAX_ENTRIES = 8;
+  // about 60 bytes each, so each file stays well under a megabyte
+  private static final int DEFAULT_MAX_COMMITS = 10_000;
+  private static final String NO_SCOPE = "none";
+  private static final String LOCK_FILE = "scopes.lock";
+  // file locks are held by the whole process, so threads have to take turns first
+  private static final Object PROCESS_LOCK = new Object();
+
+  private final Path directory;
+  private final int maxCommits;
+
+  public FileCommitScopeCache(Path directory) {
+    this(directory, DEFAULT_MAX_COMMITS);
+  }
+
+  FileCommitScopeCache(Path directory, int maxCommits) {
+    if (maxCommits < 1) {
+      throw new IllegalArgumentException("Max commits must be at least 1: " + maxCommits);
+    }
+    this.directory = directory;
+    this.maxCommits = maxCommits;
+  }
+
+  @Override
+  public Map<ObjectId, Optional<Scope>> load(String key) {
+    return read(directory.resolve(key + FILE_SUFFIX)).scopes;
+  }
+
+  @Override
+  public void store(String key, Map<ObjectId, Optional<Scope>> scopes) {
+    var file = directory.resolve(key + FILE_SUFFIX);
+    synchronized (PROCESS_LOCK) {
+      try {
+        Files.createDirectories(directory);
+        try (var channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+          // released when the channel closes
+          channel.lock();
+          merge(key, file, scopes);
+        }
+      } catch (IOException e) {
+        logger.warn("Failed to write cached scopes {}. Ignoring them.", file, e);
+      }
+    }
+  }
+
+  private void merge(String key, Path file, Map<ObjectId, Optional<Scope>> scopes) throws IOException {
+    var stored = read(file);
+    var generation = stored.generation + 1;
+    for (var entry : scopes.entrySet()) {
+      stored.scopes.put(entry.getKey(), entry.getValue());
+      stored.generations.put(entry.getKey(), generation);
+    }
+
+    var kept = stored.scopes.keySet().stream()
+        .sorted(Comparator.comparing((ObjectId id) -> stored.generations.get(id)).reversed())
+        // everything being stored was just used, so only older scopes can be dropped
+        .limit(Math.max(maxCommits, scopes.size()))
+        .collect(Collectors.toList());
+    if (kept.size() < stored.scopes.size()) {
+      logger.debug("Dropping {} of the oldest cached scopes from {}.", stored.scopes.size() - kept.size(), file);
+    }
+
+    var props = new Properties();
+    props.setProperty("format", FORMAT_VERSION);
+    props.setProperty("generation", Long.toString(generation));
+    for (var id : kept) {
+      var scope = stored.scopes.get(id).map(Scope::name).orElse(NO_SCOPE);
+      props.setProperty(id.name(), scope + " " + stored.generations.get(id));
+    }
+
+    // write to a temp file first, so loads, which don't lock, never see partial scopes
+    var temp = Files.createTempFile(directory, key, ".tmp");
+    try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+      props.store(writer, null);
+    }
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    FileVcsInventoryCache.evict(directory, FILE_SUFFIX, MAX_ENTRIES);
+  }
+
+  private static Stored read(Path file) {
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      var props = new Properties();
+      props.load(reader);
+      if (!FORMAT_VERSION.equals(props.remove("format"))) {
+        logger.debug("Ignoring cached scopes {} with unsupported format.", file);
+        return new Stored();
+      }
+
+      var stored = new Stored();
+      stored.generation = Long.parseLong((String) props.remove("generation"));
+      for (var id : props.stringPropertyNames()) {
+        var value = props.getProperty(id).split(" ", 2);
+        var commit = ObjectId.fromString(id);
+        stored.scopes.put(commit, NO_SCOPE.equals(value[0]) ? Optional.empty() : Optional.of(Scope.valueOf(value[0])));
+        stored.generations.put(commit, Long.parseLong(value[1]));
+      }
+      return stored;
+    } catch (NoSuchFileException e) {
+      return new Stored();
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Failed to read cached scopes {}. Ignoring them.", file, e);
+      return new Stored();
+    }
+  }
+
+  private static final class Stored {
+    private final Map<ObjectId, Optional<Scope>> scopes = new HashMap<>();
+    private final Map<ObjectId, Long> generations = new HashMap<>();
+    private long generation;
+  }
+}
@@ -0,0 +1,216 @@
+package org.ajoberstar.reckon.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores inventories as properties files in a directory. Failures to read or write are logged and
+ * otherwise treated as a cache miss, since the inventory can always be recalculated.
+ * <p>
+ * Storing never calculates anything the inventory hasn't already. Parallel normals and claimed
+ * versions are only stored if they were calculated, and commit messages are stored as the IDs of
+ * their commits, if known. Loaded inventories have to be reconnected to the repository by
+ * {@link GitInventorySupplier} to calculate the rest or read the messages.
+ * <p>
+ * This is intentionally package private.
+ */
+final class FileVcsInventoryCache implements VcsInventoryCache {
+  private static final Logger logger = LoggerFactory.getLogger(FileVcsInventoryCache.class);
+
+  // bump this whenever the stored properties change meaning
+  private static final String FORMAT_VERSION = "2";
+  private static final String FILE_SUFFIX = ".inventory";
+  private static final int MAX_ENTRIES = 32;
+
+  private final Path directory;
+
+  public FileVcsInventoryCache(Path directory) {
+    this.directory = directory;
+  }
+
+  @Override
+  public Optional<VcsInventory> load(String key) {
+    var file = directory.resolve(key + FILE_SUFFIX);
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      var props = new Properties();
+      props.load(reader);
+      if (!FORMAT_VERSION.equals(props.getProperty("format"))) {
+        logger.debug("Ignoring cached inventory {} with unsupported format.", file);
+        return Optional.empty();
+      }
+      return Optional.of(fromProperties(props));
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Failed to read cached inventory {}. Ignoring it.", file, e);
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public void store(String key, VcsInventory inventory) {
+    var file = directory.resolve(key + FILE_SUFFIX);
+    try {
+      Files.createDirectories(directory);
+      // write to a temp file first, so concurrent builds never see a partial inventory
+      var temp = Files.createTempFile(directory, key, ".tmp");
+      try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+        toProperties(inventory).store(writer, null);
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      evict(directory, FILE_SUFFIX, MAX_ENTRIES);
+    } catch (IOException e) {
+      logger.warn("Failed to write cached inventory {}. Ignoring it.", file, e);
+    }
+  }
+
+  /**
+   * Deletes the least recently modified files with the given suffix, until at most the given number
+   * are left.
+   */
+  static void evict(Path directory, String suffix, int maxEntries) throws IOException {
+    List<Path> entries;
+    try (Stream<Path> files = Files.list(directory)) {
+      entries = files
+          .filter(file -> file.getFileName().toString().endsWith(suffix))
+          .collect(Collectors.toList());
+    }
+
+    if (entries.size() <= maxEntries) {
+      return;
+    }
+
+    var modified = new HashMap<Path, FileTime>();
+    for (var entry : entries) {
+      try {
+        modified.put(entry, Files.getLastModifiedTime(entry));
+      } catch (NoSuchFileException e) {
+        // another build already evicted it
+      }
+    }
+
+    var oldestFirst = modified.keySet().stream()
+        .sorted(Comparator.comparing(modified::get))
+        .collect(Collectors.toList());
+    for (var entry : oldestFirst.subList(0, Math.max(0, oldestFirst.size() - maxEntries))) {
+      Files.deleteIfExists(entry);
+    }
+  }
+
+  private static Properties toProperties(VcsInventory inventory) {
+    var props = new Properties();
+    props.setProperty("format", FORMAT_VERSION);
+    inventory.getCommitId().ifPresent(id -> props.setProperty("commitId", id));
+    inventory.getCurrentVersion().ifPresent(version -> props.setProperty("currentVersion", version.toString()));
+    props.setProperty("baseVersion", inventory.getBaseVersion().toString());
+    props.setProperty("baseNormal", inventory.getBaseNormal().toString());
+    props.setProperty("commitsSinceBase", Integer.toString(inventory.getCommitsSinceBase()));
+    inventory.getCalculatedParallelNormals().ifPresent(versions -> props.setProperty("parallelNormals", joinVersions(versions)));
+    inventory.getCalculatedClaimedVersions().ifPresent(versions -> props.setProperty("claimedVersions", joinVersions(versions)));
+    props.setProperty("walkLimitReached", Boolean.toString(inventory.isWalkLimitReached()));
+
+    var commitIds = inventory.getCommitMessageSource().getCommitIds();
+    if (commitIds.isPresent()) {
+      props.setProperty("commitIds", commitIds.get().stream().map(ObjectId::name).collect(Collectors.joining(",")));
+    } else {
+      var messages = inventory.getCommitMessages();
+      props.setProperty("commitMessages", Integer.toString(messages.size()));
+      for (var i = 0; i < messages.size(); i++) {
+        props.setProperty("commitMessages." + i, messages.get(i));
+      }
+    }
+    return props;
+  }
+
+  private static VcsInventory fromProperties(Properties props) {
+    CommitMessageSource commitMessages;
+    var commitIds = props.getProperty("commitIds");
+    if (commitIds == null) {
+      var messageCount = Integer.parseInt(props.getProperty("commitMessages"));
+      var messages = new ArrayList<CommitMessage>(messageCount);
+      for (var i = 0; i < messageCount; i++) {
+        messages.add(CommitMessage.ofText(Objects.requireNonNull(props.getProperty("commitMessages." + i), "Missing commit message " + i)));
+      }
+      commitMessages = messages::stream;
+    } else {
+      var ids = Arrays.stream(commitIds.split(","))
+          .filter(id -> !id.isEmpty())
+          .map(ObjectId::fromString)
+          .collect(Collectors.toUnmodifiableList());
+      commitMessages = new StoredCommitIds(ids);
+    }
+
+    return new VcsInventory(
+        props.getProperty("commitId"),
+        // never trust cleanliness from the cache
+        false,
+        Optional.ofNullable(props.getProperty("currentVersion")).map(Version::valueOf).orElse(null),
+        Version.valueOf(props.getProperty("baseVersion")),
+        Version.valueOf(props.getProperty("baseNormal")),
+        Integer.parseInt(props.getProperty("commitsSinceBase")),
+        storedVersions(props, "parallelNormals"),
+        storedVersions(props, "claimedVersions"),
+        commitMessages,
+        Boolean.parseBoolean(props.getProperty("walkLimitReached")));
+  }
+
+  private static Supplier<Set<Version>> storedVersions(Properties props, String key) {
+    var versions = props.getProperty(key);
+    if (versions == null) {
+      return () -> {
+        throw new IllegalStateException("The " + key + " weren't cached, so they have to be calculated from the repository.");
+      };
+    }
+    return VcsInventory.calculated(splitVersions(versions));
+  }
+
+  private static String joinVersions(Set<Version> versions) {
+    return versions.stream()
+        .map(Version::toString)
+        .sorted()
+        .collect(Collectors.joining(","));
+  }
+
+  private static Set<Version> splitVersions(String versions) {
+    return Arrays.stream(versions.split(","))
+        .filter(version -> !version.isEmpty())
+        .map(Version::valueOf)
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * The commits whose messages were cached by ID, which have to be read from the repository.
+   */
+  private static final class StoredCommitIds implements CommitMessageSource {
+    private final List<ObjectId> commits;
+
+    public StoredCommitIds(List<ObjectId> commits) {
+      this.commits = commits;
+    }
+
+    @Override
+    public Stream<CommitMessage> stream() {
+      throw new IllegalStateException("The commit messages were cached by ID, so they have to be read from the repository.");
+    }
+
+    @Override
+    public Optional<List<ObjectId>> getCommitIds() {
+      return Optional.of(commits);
+    }
+  }
+}
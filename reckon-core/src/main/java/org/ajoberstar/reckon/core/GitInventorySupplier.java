@@ -2,7 +2,11 @@ package org.ajoberstar.reckon.core;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -10,11 +14,17 @@ import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdOwnerMap;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.revwalk.RevWalkUtils;
 import org.eclipse.jgit.revwalk.filter.RevFilter;
@@ -29,105 +39,462 @@ import org.slf4j.LoggerFactory;
 final class GitInventorySupplier implements VcsInventorySupplier {
   private static final Logger logger = LoggerFactory.getLogger(GitInventorySupplier.class);
 
+  // same allowance JGit makes for commits dated before their parents
+  private static final int CLOCK_SKEW_SECONDS = 24 * 60 * 60;
+
+  private static final int MIN_MESSAGE_BATCH = 16;
+  private static final int MAX_MESSAGE_BATCH = 1024;
+
   private final Repository repo;
   private final VersionTagParser tagParser;
+  private final VcsInventoryCache cache;
+  private final Duration clockSkewWindow;
+  private final int maxWalkDepth;
+  private final WalkLimitPolicy walkLimitPolicy;
+  private final int maxRetainedCommits;
+  private final boolean firstParent;
+  private final Executor statusExecutor;
+  private final GitStatusCheck statusCheck;
+  private final RepositoryWatcher watcher;
+  private final CommitScopeCache scopeCache;
+
+  private volatile InventoryMetrics metrics;
 
   public GitInventorySupplier(Repository repo, VersionTagParser tagParser) {
-    this.repo = repo;
-    this.tagParser = tagParser;
+    this(builder(repo, tagParser));
+  }
+
+  private GitInventorySupplier(Builder builder) {
+    this.repo = builder.repo;
+    this.tagParser = builder.tagParser;
+    if (builder.cache != null && tagParser.getFingerprint().isEmpty()) {
+      // without knowing how tags were parsed, a cached inventory can't be trusted
+      logger.warn("Tag parser has no fingerprint, so inventories won't be cached.");
+      this.cache = null;
+    } else {
+      this.cache = builder.cache;
+    }
+    this.clockSkewWindow = builder.clockSkewWindow;
+    this.maxWalkDepth = builder.maxWalkDepth;
+    this.walkLimitPolicy = builder.walkLimitPolicy;
+    this.maxRetainedCommits = builder.maxRetainedCommits;
+    this.firstParent = builder.firstParent;
+    // without an executor, check status on the calling thread
+    this.statusExecutor = Optional.ofNullable(builder.statusExecutor).orElse(Runnable::run);
+    this.statusCheck = builder.statusCheck;
+    this.watcher = builder.watcher;
+    this.scopeCache = builder.scopeCache;
+  }
+
+  /**
+   * Creates a builder of a supplier for the given repository, finding versions with the tag parser.
+   */
+  public static Builder builder(Repository repo, VersionTagParser tagParser) {
+    return new Builder(repo, tagParser);
+  }
+
+  /**
+   * Metrics describing the most recent call to {@link #getInventory()}, if any.
+   */
+  InventoryMetrics getMetrics() {
+    return metrics;
   }
 
   @Override
   public VcsInventory getInventory() {
+    // read before the refs are, so any change while reading them is seen next time
+    var refChanges = watcher == null ? OptionalLong.empty() : watcher.getRefChanges();
+    var watched = refChanges.isPresent() ? watcher.getInventory(watchSettings(), refChanges.getAsLong()) : Optional.<VcsInventory>empty();
+    if (watched.isPresent()) {
+      logger.debug("No refs changed since the last inventory. Reusing it.");
+      return reuse(watched.get());
+    }
+
+    var inventory = readInventory();
+    if (refChanges.isPresent()) {
+      watcher.putInventory(watchSettings(), refChanges.getAsLong(), inventory);
+    }
+    return inventory;
+  }
+
+  /**
+   * The settings, other than the refs, that change what inventory is found.
+   */
+  private Object watchSettings() {
+    // without knowing how tags were parsed, only the same parser can be trusted
+    var parser = tagParser.getFingerprint().<Object>map(fingerprint -> fingerprint).orElse(tagParser);
+    return List.of(parser, firstParent, String.valueOf(clockSkewWindow), maxWalkDepth, walkLimitPolicy);
+  }
+
+  /**
+   * Reuses an inventory found by this or another supplier of the repository, reading anything it
+   * didn't calculate from this supplier's repository.
+   */
+  private VcsInventory reuse(VcsInventory watched) {
+    var commitId = watched.getCommitId();
+    if (commitId.isEmpty()) {
+      return VcsInventory.empty(isClean());
+    }
+    try {
+      // the refs haven't changed, so HEAD is still the commit the inventory was found for
+      var head = repo.resolve(Constants.HEAD);
+      var messages = watched.getCommitMessageSource();
+      var commitMessages = messages.getCommitIds().<CommitMessageSource>map(GitCommitMessages::new).orElse(messages);
+      // not reported as this supplier's metrics, as nothing was walked to find it
+      return reattach(new InventoryMetrics(), head, watched, commitId.get(), watched.getCommitsSinceBase(), commitMessages, isClean());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private VcsInventory readInventory() {
+    var metrics = new InventoryMetrics();
+    // the status check reads the work tree, while the walks read objects, so they can overlap
+    var clean = CompletableFuture.supplyAsync(this::isClean, statusExecutor);
     // share this walk throughout to benefit from its caching
-    try (var reader = repo.newObjectReader(); RevWalk walk = new RevWalk(reader)) {
+    try (var reader = CommitGenerations.newReader(repo); var walk = new BudgetedRevWalk(reader, maxRetainedCommits, metrics)) {
       // saves on some performance as we don't really need the commit bodys
       walk.setRetainBody(false);
 
-      var headObjectId = repo.getRefDatabase().findRef("HEAD").getObjectId();
+      var headRef = repo.getRefDatabase().findRef("HEAD");
+      var headObjectId = headRef.getObjectId();
 
       if (headObjectId == null) {
         logger.debug("No HEAD commit. Presuming repo is empty.");
-        return new VcsInventory(null, isClean(), null, null, null, 0, null, null, null);
+        return new VcsInventory(null, awaitClean(clean), null, null, null, 0, null, null, null);
       }
 
       logger.debug("Found HEAD commit {}", headObjectId);
 
+      String cacheKey = null;
+      String branchKey = null;
+      if (cache != null) {
+        var tagsFingerprint = fingerprintTags();
+        cacheKey = fingerprint("HEAD " + headObjectId.name(), tagsFingerprint);
+        // the latest inventory on this branch, for incremental updates as it moves forward
+        branchKey = fingerprint("branch " + headRef.getTarget().getName(), tagsFingerprint);
+
+        var cached = cache.load(cacheKey);
+        if (cached.isPresent()) {
+          logger.debug("Using cached inventory {}", cacheKey);
+          var messages = cached.get().getCommitMessageSource();
+          var commitMessages = messages.getCommitIds().<CommitMessageSource>map(GitCommitMessages::new).orElse(messages);
+          return reattach(metrics, headObjectId.copy(), cached.get(), cached.get().getCommitId().orElse(null), cached.get().getCommitsSinceBase(), commitMessages, awaitClean(clean));
+        }
+      }
+
       var headCommit = walk.parseCommit(headObjectId);
 
-      var taggedVersions = getTaggedVersions(walk);
+      var taggedVersions = getTaggedVersions(walk, metrics);
+      var generations = CommitGenerations.of(walk);
+      metrics.setCommitGraph(generations.isAvailable());
+      var ancestry = BitmapAncestry.of(walk);
+      metrics.setBitmapIndex(ancestry.isAvailable());
 
       logger.debug("Found tagged versions: {}", taggedVersions);
 
+      var prior = Optional.ofNullable(branchKey).flatMap(key -> cache.load(key));
+      var inventory = prior
+          .flatMap(priorInventory -> updateInventory(reader, walk, generations, ancestry, headCommit, taggedVersions, priorInventory, clean))
+          .orElseGet(() -> findInventory(reader, walk, metrics, headCommit, taggedVersions, prior, clean));
+
+      if (cache != null) {
+        cache.store(cacheKey, inventory);
+        cache.store(branchKey, inventory);
+      }
+      return inventory;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      logger.debug("Inventory metrics: {}", metrics);
+      this.metrics = metrics;
+    }
+  }
+
+  private VcsInventory findInventory(ObjectReader reader, BudgetedRevWalk walk, InventoryMetrics metrics, RevCommit headCommit, Set<TaggedVersion> taggedVersions, Optional<VcsInventory> prior, CompletableFuture<Boolean> clean) {
+    try {
       var currentVersion = findCurrent(headCommit, taggedVersions.stream())
           .map(TaggedVersion::getVersion)
           .orElse(null);
-      var baseNormal = findBase(walk, headCommit, taggedVersions.stream().filter(TaggedVersion::isNormal));
-      var baseVersion = findBase(walk, headCommit, taggedVersions.stream());
-
-      var commitsSinceBase = RevWalkUtils.count(walk, headCommit, baseNormal.getCommit());
-
-      var parallelCandidates = findParallelCandidates(walk, headCommit, taggedVersions);
+      var history = findHistory(walk, metrics, headCommit, taggedVersions, true);
+      var baseNormal = history.getBaseNormal();
+      var baseVersion = history.getBaseVersion();
 
-      var taggedCommits = taggedVersions.stream().map(TaggedVersion::getCommit).collect(Collectors.toSet());
-      var parallelVersions = parallelCandidates.stream()
-          .map(version -> findParallel(walk, headCommit, version, taggedCommits))
-          .flatMap(Optional::stream)
-          .collect(Collectors.toSet());
-
-      var claimedVersions = taggedVersions.stream().map(TaggedVersion::getVersion).collect(Collectors.toSet());
+      if (history.isWalkLimitReached()) {
+        if (walkLimitPolicy == WalkLimitPolicy.FAIL) {
+          throw new IllegalStateException("Walked " + maxWalkDepth + " commits from HEAD without reaching a tag on every path. Tag a more recent commit or raise the max walk depth.");
+        } else if (walkLimitPolicy == WalkLimitPolicy.CACHED_BASE && prior.isPresent()) {
+          logger.warn("Walked {} commits from HEAD without reaching a tag on every path. Using the base versions cached for {}.", maxWalkDepth, prior.get().getCommitId().orElse(null));
+          baseNormal = new TaggedVersion(prior.get().getBaseNormal(), null);
+          baseVersion = new TaggedVersion(prior.get().getBaseVersion(), null);
+        } else {
+          logger.warn("Walked {} commits from HEAD without reaching a tag on every path. Treating older history as untagged.", maxWalkDepth);
+        }
+      }
 
-      var commitMessages = findCommitMessages(walk, headCommit, baseNormal.getCommit());
+      var targetNormals = targetNormals(baseNormal.getVersion());
+      var cutoff = cutoff(history);
+      var headId = headCommit.copy();
+      var commitsSinceBase = history.getCommitsSinceBase();
 
       return new VcsInventory(
-          reader.abbreviate(headObjectId).name(),
-          isClean(),
+          reader.abbreviate(headCommit).name(),
+          awaitClean(clean),
           currentVersion,
           baseVersion.getVersion(),
           baseNormal.getVersion(),
-          commitsSinceBase,
-          parallelVersions,
-          claimedVersions,
-          commitMessages);
+          commitsSinceBase.size(),
+          () -> findParallelVersions(metrics, headId, taggedVersions, targetNormals, cutoff),
+          () -> taggedVersions.stream().map(TaggedVersion::getVersion).collect(Collectors.toSet()),
+          new GitCommitMessages(commitsSinceBase),
+          history.isWalkLimitReached());
     } catch (IOException e) {
       throw new UncheckedIOException(e);
     }
   }
 
-  private boolean isClean() {
+  /**
+   * Updates an inventory calculated for an ancestor of HEAD, only walking the commits added since
+   * then. Tags must not have changed in between (guaranteed by the cache key). Returns empty if the
+   * prior inventory can't be safely reused, in which case a full inventory is needed.
+   */
+  private Optional<VcsInventory> updateInventory(ObjectReader reader, RevWalk walk, CommitGenerations generations, BitmapAncestry ancestry, RevCommit headCommit, Set<TaggedVersion> taggedVersions, VcsInventory prior, CompletableFuture<Boolean> clean) {
     try {
-      var status = new Git(repo).status().call();
-      if (!status.isClean()) {
-        logger.info("Git repository is not clean: added={}, changed={}, removed={}, untracked={}, modified={}, missing={}",
-            status.getAdded(),
-            status.getChanged(),
-            status.getRemoved(),
-            status.getUntracked(),
-            status.getModified(),
-            status.getMissing());
+      // only messages read by commit can use the scope cache, so don't mix in any others
+      var priorCommits = prior.getCommitMessageSource().getCommitIds();
+      if (priorCommits.isEmpty()) {
+        logger.debug("Prior inventory doesn't know which commits are since its base. Doing a full inventory.");
+        return Optional.empty();
+      }
+
+      var priorIds = prior.getCommitId()
+          .map(id -> resolveAbbreviation(reader, id))
+          .orElse(Collections.emptySet());
+      if (priorIds.size() != 1) {
+        logger.debug("Cannot resolve prior inventory commit {}. Doing a full inventory.", prior.getCommitId());
+        return Optional.empty();
+      }
+      var priorCommit = walk.parseCommit(priorIds.iterator().next());
+      if (!generations.mayReach(headCommit, priorCommit) || (ancestry.isAvailable() && !ancestry.isMergedInto(priorCommit, headCommit))) {
+        logger.debug("Prior inventory commit {} is not an ancestor of HEAD. Doing a full inventory.", priorCommit.name());
+        return Optional.empty();
+      }
+
+      walk.reset();
+      walk.setRevFilter(RevFilter.ALL);
+      walk.setFirstParent(firstParent);
+      walk.markStart(headCommit);
+      walk.markUninteresting(priorCommit);
+
+      var newCommits = new ArrayList<RevCommit>();
+      var descendsFromPrior = false;
+      for (var commit : walk) {
+        newCommits.add(commit);
+        descendsFromPrior = descendsFromPrior || Arrays.asList(followedParents(commit)).contains(priorCommit);
+      }
+      walk.reset();
+      walk.setFirstParent(false);
+
+      if (!descendsFromPrior) {
+        logger.debug("Prior inventory commit {} is not an ancestor of HEAD. Doing a full inventory.", priorCommit.name());
+        return Optional.empty();
+      }
+
+      var taggedCommits = taggedVersions.stream().map(TaggedVersion::getCommit).collect(Collectors.toSet());
+      if (newCommits.stream().anyMatch(taggedCommits::contains)) {
+        logger.debug("Tagged commits added since prior inventory commit {}. Doing a full inventory.", priorCommit.name());
+        return Optional.empty();
+      }
+
+      var changedCommits = new HashSet<RevCommit>(newCommits);
+      changedCommits.add(priorCommit);
+      if (isParallelAffected(walk, generations, headCommit, taggedCommits, changedCommits)) {
+        logger.debug("Tagged commits descend from commits since prior inventory commit {}. Doing a full inventory.", priorCommit.name());
+        return Optional.empty();
       }
-      return status.isClean();
-    } catch (GitAPIException e) {
-      logger.error("Failed to determine status of repository. Assuming not clean.", e);
-      // TODO should this throw up?
+
+      logger.debug("Updating prior inventory from {} with {} new commits.", priorCommit.name(), newCommits.size());
+
+      var newIds = newCommits.stream()
+          .map(RevCommit::copy)
+          .collect(Collectors.toList());
+
+      var commits = new ArrayList<ObjectId>(newIds);
+      commits.addAll(priorCommits.get());
+
+      // no tags were added to HEAD's history, so the prior's base versions and parallel normals still apply
+      return Optional.of(reattach(
+          metrics,
+          headCommit.copy(),
+          prior,
+          reader.abbreviate(headCommit).name(),
+          prior.getCommitsSinceBase() + newCommits.size(),
+          new GitCommitMessages(commits),
+          awaitClean(clean)));
+    } catch (MissingObjectException e) {
+      logger.debug("Prior inventory commit no longer exists. Doing a full inventory.", e);
+      return Optional.empty();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Parallel versions only change as HEAD moves forward if a tagged commit outside of HEAD's history
+   * descends from the prior HEAD or one of the new commits, since that changes its merge base with
+   * HEAD. Children aren't dated earlier than their parents (beyond clock skew), so only tagged
+   * commits newer than the changed commits need to be walked.
+   */
+  private boolean isParallelAffected(RevWalk walk, CommitGenerations generations, RevCommit head, Set<RevCommit> taggedCommits, Set<RevCommit> changedCommits) throws IOException {
+    var cutoff = changedCommits.stream().mapToInt(RevCommit::getCommitTime).min().orElse(Integer.MAX_VALUE) - CLOCK_SKEW_SECONDS;
+
+    // only commits with a higher generation than a changed commit can have it as a parent
+    RevCommit lowestChanged = null;
+    for (var commit : changedCommits) {
+      if (lowestChanged == null || generations.mayReach(lowestChanged, commit)) {
+        lowestChanged = commit;
+      }
+    }
+
+    walk.reset();
+    walk.setRevFilter(RevFilter.ALL);
+    walk.markUninteresting(head);
+    var anyStarts = false;
+    for (var commit : taggedCommits) {
+      walk.parseHeaders(commit);
+      if (commit.getCommitTime() >= cutoff && generations.mayReach(commit, lowestChanged)) {
+        walk.markStart(commit);
+        anyStarts = true;
+      }
+    }
+
+    if (!anyStarts) {
       return false;
     }
+
+    for (var commit : walk) {
+      if (commit.getCommitTime() < cutoff) {
+        return false;
+      }
+      for (var parent : commit.getParents()) {
+        if (changedCommits.contains(parent)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private Set<ObjectId> resolveAbbreviation(ObjectReader reader, String abbreviatedId) {
+    try {
+      return new HashSet<>(reader.resolve(AbbreviatedObjectId.fromString(abbreviatedId)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Fingerprints the tags (and what they point to), as they're one of the inputs to the history
+   * portion of the inventory. The index isn't fingerprinted, since cleanliness is always re-checked
+   * rather than cached.
+   */
+  private byte[] fingerprintTags() throws IOException {
+    var digest = Constants.newMessageDigest();
+    for (var ref : repo.getRefDatabase().getRefsByPrefix(Constants.R_TAGS)) {
+      var objectId = ref.getObjectId();
+      digest.update(Constants.encode(ref.getName() + " " + (objectId == null ? "" : objectId.name()) + "\n"));
+    }
+    return digest.digest();
+  }
+
+  private String fingerprint(String head, byte[] tagsFingerprint) {
+    var digest = Constants.newMessageDigest();
+    digest.update(Constants.encode(head + "\n"));
+    // parsers may read different versions from the same tags
+    digest.update(Constants.encode("tag-parser " + tagParser.getFingerprint().orElseThrow() + "\n"));
+    // settings that change which history is considered
+    digest.update(Constants.encode("first-parent " + firstParent + "\n"));
+    // settings that change which parallel versions are found
+    digest.update(Constants.encode("clock-skew-window " + (clockSkewWindow == null ? "none" : clockSkewWindow.getSeconds()) + "\n"));
+    // settings that change how much of that history is walked, and what to make of it if not enough
+    digest.update(Constants.encode("max-walk-depth " + maxWalkDepth + " " + walkLimitPolicy + "\n"));
+    digest.update(tagsFingerprint);
+    return ObjectId.fromRaw(digest.digest()).name();
+  }
+
+  private String fingerprintScopes(String parserFingerprint, boolean preV1) {
+    var digest = Constants.newMessageDigest();
+    digest.update(Constants.encode(parserFingerprint + "\n"));
+    // parsers may read scopes differently before v1
+    digest.update(Constants.encode("pre-v1 " + preV1 + "\n"));
+    return ObjectId.fromRaw(digest.digest()).name();
+  }
+
+  /**
+   * Checks whether the repository is clean. Without a status check, it's presumed to be.
+   */
+  private boolean isClean() {
+    if (statusCheck == null) {
+      return true;
+    }
+    return watcher == null ? statusCheck.isClean() : watcher.isClean(statusCheck.getSettings(), statusCheck::isClean);
   }
 
-  private Set<TaggedVersion> getTaggedVersions(RevWalk walk) throws IOException {
+  /**
+   * Reconnects an inventory from the cache to the repository, for the given HEAD. Parallel normals and
+   * claimed versions the cache didn't store are calculated only if they're asked for.
+   */
+  private VcsInventory reattach(InventoryMetrics metrics, ObjectId head, VcsInventory cached, String commitId, int commitsSinceBase, CommitMessageSource commitMessages, boolean clean) {
+    var parallelNormals = cached.getCalculatedParallelNormals();
+    var claimedVersions = cached.getCalculatedClaimedVersions();
+    return new VcsInventory(
+        commitId,
+        clean,
+        // HEAD is only updated from a prior inventory if it isn't tagged
+        Objects.equals(commitId, cached.getCommitId().orElse(null)) ? cached.getCurrentVersion().orElse(null) : null,
+        cached.getBaseVersion(),
+        cached.getBaseNormal(),
+        commitsSinceBase,
+        parallelNormals.isPresent() ? VcsInventory.calculated(parallelNormals.get()) : () -> findParallelVersions(metrics, head, cached.getBaseNormal()),
+        claimedVersions.isPresent() ? VcsInventory.calculated(claimedVersions.get()) : this::findClaimedVersions,
+        commitMessages,
+        cached.isWalkLimitReached());
+  }
+
+  /**
+   * Waits for the status check, rethrowing anything it failed with.
+   */
+  private boolean awaitClean(CompletableFuture<Boolean> clean) {
+    try {
+      return clean.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private Set<TaggedVersion> getTaggedVersions(RevWalk walk, InventoryMetrics metrics) throws IOException {
     var versions = new HashSet<TaggedVersion>();
 
     for (var ref : repo.getRefDatabase().getRefsByPrefix(Constants.R_TAGS)) {
+      // check the name first, so refs that aren't versions never need their objects read
+      var tagName = Repository.shortenRefName(ref.getName());
+      var version = tagParser.parse(tagName);
+      metrics.tagRef(version.isEmpty());
+      if (version.isEmpty()) {
+        continue;
+      }
 
+      // packed refs usually know their peeled id already, otherwise this reads the tag object
       var tag = repo.getRefDatabase().peel(ref);
       // only annotated tags return a peeled object id
       var objectId = tag.getPeeledObjectId() == null ? tag.getObjectId() : tag.getPeeledObjectId();
-      var commit = walk.parseCommit(objectId);
+      // headers are parsed on demand by whichever walk reaches the commit
+      var commit = walk.lookupCommit(objectId);
 
-      var tagName = Repository.shortenRefName(ref.getName());
-      tagParser.parse(tagName).ifPresent(version -> {
-        versions.add(new TaggedVersion(version, commit));
-      });
+      versions.add(new TaggedVersion(version.get(), commit));
     }
     return versions;
   }
@@ -139,28 +506,179 @@ final class GitInventorySupplier implements VcsInventorySupplier {
         .max(Comparator.comparing(TaggedVersion::getVersion));
   }
 
-  private TaggedVersion findBase(RevWalk walk, RevCommit head, Stream<TaggedVersion> versions) throws IOException {
+  /**
+   * Finds the base version, base normal, and the messages of the commits since the base normal in one
+   * walk from HEAD.
+   * <p>
+   * Parents of a commit tagged with a normal can't be any nearer, so they're excluded from the walk.
+   * When there's a single such commit, the rest of the walk is exactly the commits since the base
+   * normal. Otherwise, those commits need to be found with another walk. Tagged commits that have a
+   * tagged descendant are flagged, so the nearest tags of any kind are found along the way.
+   * <p>
+   * At most the max walk depth of commits are walked. If that isn't enough, the history only reflects
+   * the commits walked, and the walk limit policy decides what to make of it.
+   * <p>
+   * In first-parent mode, only first parents are followed, so anything only reachable through a merged
+   * branch is ignored.
+   */
+  private History findHistory(BudgetedRevWalk walk, InventoryMetrics metrics, RevCommit head, Set<TaggedVersion> taggedVersions, boolean release) throws IOException {
+    var versionsByCommit = taggedVersions.stream().collect(Collectors.groupingBy(TaggedVersion::getCommit));
+
+    var nearestVersions = new ArrayList<TaggedVersion>();
+    var nearestNormals = new ArrayList<TaggedVersion>();
+    // commits produced by the walk, in order, split between those released to stay within the memory
+    // budget and those the walk still holds
+    var released = new ArrayList<WalkedCommit>();
+    var releasedIds = new ObjectIdOwnerMap<WalkedCommit>();
+    var commits = new ArrayList<RevCommit>();
+    // parents not produced yet, which is where the walk resumes after releasing commits
+    var pending = new HashSet<RevCommit>();
+    List<ObjectId> sinceBase = null;
+    var oldestCommitTime = head.getCommitTime();
+    var walkLimitReached = false;
+    var revisited = false;
+
     walk.reset();
-    walk.setRevFilter(RevFilter.ALL);
-    walk.markStart(head);
+    var belowTag = walk.newFlag("BELOW_TAG");
+    try {
+      walk.setRevFilter(RevFilter.ALL);
+      walk.setFirstParent(firstParent);
+      walk.carry(belowTag);
+      walk.watchForgotten(releasedIds);
+      var start = walk.parseCommit(head);
+      walk.markStart(start);
+      pending.add(start);
+
+      RevCommit commit;
+      while ((commit = walk.next()) != null) {
+        if (released.size() + commits.size() == maxWalkDepth) {
+          walkLimitReached = true;
+          break;
+        }
 
-    var versionsByCommit = versions.collect(Collectors.groupingBy(TaggedVersion::getCommit));
+        commits.add(commit);
+        pending.remove(commit);
+        pending.addAll(Arrays.asList(followedParents(commit)));
 
-    Stream.Builder<List<TaggedVersion>> builder = Stream.builder();
+        var matches = versionsByCommit.get(commit);
+        if (matches != null) {
+          for (var parent : followedParents(commit)) {
+            parent.add(belowTag);
+            parent.carry(belowTag);
+          }
 
-    for (var commit : walk) {
-      var matches = versionsByCommit.get(commit);
-      if (matches != null) {
-        // Parents can't be "nearer". Exclude them to avoid extra walking.
-        for (var parent : commit.getParents()) {
-          walk.markUninteresting(parent);
+          if (matches.stream().anyMatch(TaggedVersion::isNormal)) {
+            // Parents can't be "nearer". Exclude them to avoid extra walking.
+            for (var parent : followedParents(commit)) {
+              walk.markUninteresting(parent);
+            }
+          }
+        }
+
+        if (release && walk.isOverBudget()) {
+          belowTag = releaseCommits(walk, belowTag, commits, released, releasedIds, pending);
+          metrics.walkRecycled();
+        }
+      }
+      revisited = walk.isRevisited();
+
+      // The walk may produce a commit before finding out it's in a tagged commit's history (it reads
+      // ahead by one, and clock skew can reorder commits), so only judge nearness once it's done.
+      var walkedCount = released.size() + commits.size();
+      var normalCommits = new ArrayList<WalkedCommit>();
+      for (var i = 0; i < walkedCount; i++) {
+        var walked = i < released.size() ? released.get(i) : new WalkedCommit(commits.get(i - released.size()), belowTag);
+        var matches = versionsByCommit.get(walked);
+        if (!walked.isBelowTag()) {
+          // commits since the nearest tags, and the nearest tagged commits themselves
+          oldestCommitTime = Math.min(oldestCommitTime, walked.getCommitTime());
+          if (matches != null) {
+            nearestVersions.addAll(matches);
+          }
+        }
+        if (matches != null && !walked.isUninteresting() && matches.stream().anyMatch(TaggedVersion::isNormal)) {
+          normalCommits.add(walked);
+          matches.stream()
+              .filter(TaggedVersion::isNormal)
+              .forEach(nearestNormals::add);
         }
-        builder.accept(matches);
       }
+
+      if (normalCommits.size() <= 1 || walkLimitReached) {
+        // with a single nearest normal, everything else produced and not excluded since is after it (or
+        // as much of it as could be walked)
+        var baseCommit = findMax(nearestNormals).getCommit();
+        sinceBase = new ArrayList<ObjectId>();
+        for (var i = 0; i < walkedCount; i++) {
+          var walked = i < released.size() ? released.get(i) : new WalkedCommit(commits.get(i - released.size()), belowTag);
+          if (!walked.equals(baseCommit) && !walked.isUninteresting()) {
+            sinceBase.add(walked.copy());
+          }
+        }
+      }
+    } finally {
+      walk.watchForgotten(null);
+      walk.reset();
+      walk.disposeFlag(belowTag);
+      walk.setFirstParent(false);
     }
 
-    return builder.build()
-        .flatMap(List::stream)
+    if (revisited) {
+      // only happens if ancestors were produced before their descendants, e.g. due to clock skew
+      logger.debug("History walk revisited commits released to stay within the memory budget. Walking again without releasing any.");
+      walk.dispose();
+      return findHistory(walk, metrics, head, taggedVersions, false);
+    }
+
+    var baseVersion = findMax(nearestVersions);
+    var baseNormal = findMax(nearestNormals);
+    if (sinceBase == null) {
+      logger.debug("Multiple nearest normals {}. Walking again for commits since the base normal.", nearestNormals);
+      sinceBase = findCommitsSince(walk, head, baseNormal.getCommit());
+    }
+    return new History(baseVersion, baseNormal, sinceBase, oldestCommitTime, walkLimitReached);
+  }
+
+  /**
+   * Disposes the walk, keeping only compact state about the commits it produced, and resumes it from
+   * the pending parents. Returns the replacement for the below tag flag, as flags don't survive.
+   */
+  private RevFlag releaseCommits(BudgetedRevWalk walk, RevFlag belowTag, List<RevCommit> commits, List<WalkedCommit> released, ObjectIdOwnerMap<WalkedCommit> releasedIds, Set<RevCommit> pending) throws IOException {
+    for (var commit : commits) {
+      var walked = new WalkedCommit(commit, belowTag);
+      released.add(walked);
+      releasedIds.add(walked);
+    }
+    commits.clear();
+
+    var resumeFrom = pending.stream()
+        .filter(commit -> !releasedIds.contains(commit))
+        .map(commit -> new WalkedCommit(commit, belowTag))
+        .collect(Collectors.toList());
+    pending.clear();
+
+    logger.debug("Releasing {} commits from the history walk, resuming from {} pending commits.", released.size(), resumeFrom.size());
+    walk.dispose();
+    walk.setFirstParent(firstParent);
+    var newBelowTag = walk.newFlag("BELOW_TAG");
+    walk.carry(newBelowTag);
+    for (var walked : resumeFrom) {
+      var commit = walk.lookupCommit(walked);
+      if (walked.isBelowTag()) {
+        commit.add(newBelowTag);
+      }
+      if (walked.isUninteresting()) {
+        walk.markUninteresting(commit);
+      } else {
+        walk.markStart(commit);
+      }
+      pending.add(commit);
+    }
+    return newBelowTag;
+  }
+
+  private TaggedVersion findMax(List<TaggedVersion> versions) {
+    return versions.stream()
         // if multiple versions are topologically equivalent (no version tag between them and the head on
         // their branch of history) ensure we pick the highest precedence one. Since we include its history,
         // inference must consider that the base
@@ -168,62 +686,330 @@ final class GitInventorySupplier implements VcsInventorySupplier {
         .orElse(new TaggedVersion(Version.IDENTITY, null));
   }
 
-  private Set<TaggedVersion> findParallelCandidates(RevWalk walk, RevCommit head, Set<TaggedVersion> candidates) {
-    return candidates.stream()
-        .filter(candidate -> !doMergedInto(walk, head, candidate.getCommit()))
-        .filter(candidate -> !doMergedInto(walk, candidate.getCommit(), head))
-        .collect(Collectors.toSet());
-  }
-
-  private boolean doMergedInto(RevWalk walk, RevCommit base, RevCommit tip) {
-    // TODO consider something like JGit's 24 hour clock skew to eliminate candidates
-    // you know can't be see RevWalkUtils#findBranchesReachableFrom
+  private List<ObjectId> findCommitsSince(RevWalk walk, RevCommit head, RevCommit base) {
     try {
-      return walk.isMergedInto(base, tip);
+      walk.reset();
+      walk.setRevFilter(RevFilter.ALL);
+      walk.setFirstParent(firstParent);
+      return RevWalkUtils.find(walk, walk.parseCommit(head), walk.parseCommit(base)).stream()
+          .map(RevCommit::copy)
+          .collect(Collectors.toList());
     } catch (IOException e) {
       throw new UncheckedIOException(e);
+    } finally {
+      walk.reset();
+      walk.setFirstParent(false);
     }
   }
 
-  private Optional<Version> findParallel(RevWalk walk, RevCommit head, TaggedVersion candidate, Set<RevCommit> tagged) {
-    try {
-      walk.reset();
-      walk.setRevFilter(RevFilter.MERGE_BASE);
-      walk.markStart(head);
-      walk.markStart(candidate.getCommit());
+  /**
+   * Finds versions being developed on branches parallel to HEAD. Only called if the inventory's parallel
+   * normals are asked for, after the inventory's own walk is closed, so this walks separately.
+   */
+  /**
+   * Inference only asks whether the next normal is taken, so don't bother with any others.
+   */
+  private static Set<Version> targetNormals(Version baseNormal) {
+    return Arrays.stream(Scope.values())
+        .map(baseNormal::incrementNormal)
+        .collect(Collectors.toSet());
+  }
 
-      var mergeBase = walk.next();
+  /**
+   * Merge bases of parallel branches are never older than the commits since the nearest tags, though
+   * in first-parent mode, merged branches weren't walked, so those commits aren't known.
+   */
+  private int cutoff(History history) {
+    return clockSkewWindow == null || firstParent
+        ? Integer.MIN_VALUE
+        : (int) Math.max(Integer.MIN_VALUE, history.getOldestCommitTime() - clockSkewWindow.getSeconds());
+  }
 
-      walk.reset();
-      walk.setRevFilter(RevFilter.ALL);
-      var taggedSinceMergeBase = RevWalkUtils.find(walk, head, mergeBase).stream()
-          .anyMatch(tagged::contains);
-
-      if (mergeBase != null
-          && !taggedSinceMergeBase
-          && !mergeBase.equals(head)
-          && !mergeBase.equals(candidate.getCommit())) {
-        return Optional.of(candidate.getVersion().getNormal());
-      } else {
-        return Optional.empty();
+  /**
+   * Finds the parallel normals for an inventory from the cache, which didn't store them. The cutoff of
+   * the clock skew window depends on the commits walked to find the base, so if there is one, that
+   * walk is repeated.
+   */
+  private Set<Version> findParallelVersions(InventoryMetrics metrics, AnyObjectId head, Version baseNormal) {
+    try (var reader = CommitGenerations.newReader(repo); var walk = new BudgetedRevWalk(reader, maxRetainedCommits, metrics)) {
+      walk.setRetainBody(false);
+      // these were already counted when the inventory was first found
+      var taggedVersions = getTaggedVersions(walk, new InventoryMetrics());
+      var cutoff = Integer.MIN_VALUE;
+      if (clockSkewWindow != null && !firstParent) {
+        cutoff = cutoff(findHistory(walk, metrics, walk.parseCommit(head), taggedVersions, true));
       }
+      return findParallelVersions(metrics, head, taggedVersions, targetNormals(baseNormal), cutoff);
     } catch (IOException e) {
       throw new UncheckedIOException(e);
     }
   }
 
-  private List<String> findCommitMessages(RevWalk walk, RevCommit head, RevCommit base) {
+  /**
+   * Finds the claimed versions for an inventory from the cache, which didn't store them.
+   */
+  private Set<Version> findClaimedVersions() {
+    try (var walk = new RevWalk(repo)) {
+      return getTaggedVersions(walk, new InventoryMetrics()).stream()
+          .map(TaggedVersion::getVersion)
+          .collect(Collectors.toSet());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Set<Version> findParallelVersions(InventoryMetrics metrics, AnyObjectId head, Set<TaggedVersion> taggedVersions, Set<Version> targetNormals, int cutoff) {
+    try (var reader = CommitGenerations.newReader(repo); var walk = new BudgetedRevWalk(reader, maxRetainedCommits, metrics)) {
+      walk.setRetainBody(false);
+      var generations = CommitGenerations.of(walk);
+      var ancestry = BitmapAncestry.of(walk);
+      var versionsByCommit = taggedVersions.stream()
+          .collect(Collectors.groupingBy(version -> walk.lookupCommit(version.getCommit()), Collectors.mapping(TaggedVersion::getVersion, Collectors.toList())));
+      return new ParallelVersionFinder(walk, generations, ancestry, metrics).find(walk.parseCommit(head), versionsByCommit, targetNormals, cutoff);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Streams the messages of the given commits, in order, reading them in batches as they're consumed.
+   * They're left in their raw commits, so parsers decode them only if needed. Only the IDs and one
+   * batch are kept, so memory stays flat however many messages are read.
+   * <p>
+   * Batches start small, so little is read past a message that ends consumption early, and double up
+   * to a limit as more are consumed.
+   */
+  private Stream<CommitMessage> streamCommitMessages(List<ObjectId> commits) {
+    var batches = new ArrayList<List<ObjectId>>();
+    for (int from = 0, size = MIN_MESSAGE_BATCH; from < commits.size(); from += size, size = Math.min(size * 2, MAX_MESSAGE_BATCH)) {
+      batches.add(commits.subList(from, Math.min(from + size, commits.size())));
+    }
+
+    var reader = repo.newObjectReader();
+    return batches.stream()
+        .flatMap(batch -> readRawCommits(reader, batch).stream())
+        .map(CommitMessage::ofRawCommit)
+        .onClose(reader::close);
+  }
+
+  /**
+   * Reads the raw commits in one queue, so readers that can order the reads by their location in the
+   * packs do so. They're returned in the order given.
+   */
+  private List<byte[]> readRawCommits(ObjectReader reader, List<ObjectId> commits) {
+    var indexes = new HashMap<ObjectId, Integer>();
+    for (var i = 0; i < commits.size(); i++) {
+      indexes.put(commits.get(i), i);
+    }
+
+    var rawCommits = new byte[commits.size()][];
+    var queue = reader.open(commits, true);
     try {
-      walk.reset();
-      walk.setRevFilter(RevFilter.ALL);
-      var messages = new ArrayList<String>();
-      for (var commit : RevWalkUtils.find(walk, head, base)) {
-        walk.parseBody(commit);
-        messages.add(commit.getFullMessage());
+      while (queue.next()) {
+        var loader = queue.open();
+        if (loader.getType() != Constants.OBJ_COMMIT) {
+          throw new IncorrectObjectTypeException(queue.getObjectId(), Constants.OBJ_COMMIT);
+        }
+        rawCommits[indexes.get(queue.getCurrent())] = loader.getCachedBytes();
       }
-      return messages;
+      return Arrays.asList(rawCommits);
     } catch (IOException e) {
       throw new UncheckedIOException(e);
+    } finally {
+      queue.release();
+    }
+  }
+
+  /**
+   * The parents the history walks follow, which is only the first in first-parent mode.
+   */
+  private RevCommit[] followedParents(RevCommit commit) {
+    if (firstParent && commit.getParentCount() > 1) {
+      return new RevCommit[] {commit.getParent(0)};
+    }
+    return commit.getParents();
+  }
+
+  /**
+   * The messages of commits in the repository. As commits never change, the scopes read from them can
+   * be cached by commit, if the parser has a fingerprint, and only the messages of commits not seen
+   * before are read.
+   */
+  private final class GitCommitMessages implements CommitMessageSource {
+    private final List<ObjectId> commits;
+
+    public GitCommitMessages(List<ObjectId> commits) {
+      this.commits = commits;
+    }
+
+    @Override
+    public Stream<CommitMessage> stream() {
+      return streamCommitMessages(commits);
+    }
+
+    @Override
+    public Optional<List<ObjectId>> getCommitIds() {
+      return Optional.of(commits);
+    }
+
+    @Override
+    public Optional<Scope> findScope(CommitMessageScopeParser parser, boolean preV1) {
+      var parserFingerprint = parser.getFingerprint();
+      if (scopeCache == null || parserFingerprint.isEmpty()) {
+        return CommitMessageSource.super.findScope(parser, preV1);
+      }
+
+      var key = fingerprintScopes(parserFingerprint.get(), preV1);
+      var cached = scopeCache.load(key);
+
+      // the scopes of the commits since the base, which are stored again to keep them from being pruned
+      var scopes = new HashMap<ObjectId, Optional<Scope>>();
+      var misses = new ArrayList<ObjectId>();
+      Scope max = null;
+      for (var commit : commits) {
+        var scope = cached.get(commit);
+        if (scope == null) {
+          misses.add(commit);
+        } else {
+          scopes.put(commit, scope);
+          if (scope.isPresent()) {
+            max = CommitMessageSource.max(max, scope.get());
+          }
+        }
+      }
+      var hits = scopes.size();
+      logger.debug("Found cached scopes for {} commits. Parsing up to {} more.", hits, misses.size());
+
+      if (max != Scope.MAJOR && !misses.isEmpty()) {
+        try (var messages = streamCommitMessages(misses)) {
+          var iterator = messages.iterator();
+          // nothing can outrank MAJOR, so there's no need to read any further
+          for (var i = 0; max != Scope.MAJOR && iterator.hasNext(); i++) {
+            var scope = iterator.next().parse(parser, preV1);
+            scopes.put(misses.get(i), scope);
+            if (scope.isPresent()) {
+              max = CommitMessageSource.max(max, scope.get());
+            }
+          }
+        }
+      }
+
+      // storing merges into the other cached scopes, so it's only worth it if any are new
+      if (scopes.size() > hits) {
+        scopeCache.store(key, scopes);
+      }
+      return Optional.ofNullable(max);
+    }
+  }
+
+  /**
+   * Builds a {@link GitInventorySupplier}. Everything but the repository and tag parser is optional.
+   */
+  public static final class Builder {
+    private final Repository repo;
+    private final VersionTagParser tagParser;
+    private VcsInventoryCache cache;
+    private Duration clockSkewWindow;
+    private int maxWalkDepth = Integer.MAX_VALUE;
+    private WalkLimitPolicy walkLimitPolicy = WalkLimitPolicy.NO_BASE;
+    private int maxRetainedCommits = Integer.MAX_VALUE;
+    private boolean firstParent;
+    private Executor statusExecutor;
+    private GitStatusCheck statusCheck;
+    private RepositoryWatcher watcher;
+    private CommitScopeCache scopeCache;
+
+    private Builder(Repository repo, VersionTagParser tagParser) {
+      this.repo = Objects.requireNonNull(repo, "Must provide a repository.");
+      this.tagParser = Objects.requireNonNull(tagParser, "Must provide a tag parser.");
+      this.statusCheck = new GitStatusCheck(repo);
+    }
+
+    /**
+     * The cache of inventories, or {@code null} to not cache them.
+     */
+    public Builder cache(VcsInventoryCache cache) {
+      this.cache = cache;
+      return this;
+    }
+
+    /**
+     * How much older than the nearest tags a parallel commit may appear, or {@code null} to not prune
+     * any.
+     */
+    public Builder clockSkewWindow(Duration clockSkewWindow) {
+      this.clockSkewWindow = clockSkewWindow;
+      return this;
+    }
+
+    /**
+     * The most commits to walk from HEAD, and what to do if they aren't enough.
+     */
+    public Builder maxWalkDepth(int maxWalkDepth, WalkLimitPolicy walkLimitPolicy) {
+      if (maxWalkDepth < 1) {
+        throw new IllegalArgumentException("Max walk depth must be 1 or greater: " + maxWalkDepth);
+      }
+      this.maxWalkDepth = maxWalkDepth;
+      this.walkLimitPolicy = Objects.requireNonNull(walkLimitPolicy, "Must provide a walk limit policy.");
+      return this;
+    }
+
+    /**
+     * The most commits for walks to hold before releasing them.
+     */
+    public Builder maxRetainedCommits(int maxRetainedCommits) {
+      if (maxRetainedCommits < 1) {
+        throw new IllegalArgumentException("Max retained commits must be 1 or greater: " + maxRetainedCommits);
+      }
+      this.maxRetainedCommits = maxRetainedCommits;
+      return this;
+    }
+
+    /**
+     * Whether to only follow first parents when finding the base versions and commits since them.
+     */
+    public Builder firstParent(boolean firstParent) {
+      this.firstParent = firstParent;
+      return this;
+    }
+
+    /**
+     * The executor to check status with while history is walked, or {@code null} to check on the
+     * calling thread.
+     */
+    public Builder statusExecutor(Executor statusExecutor) {
+      this.statusExecutor = statusExecutor;
+      return this;
+    }
+
+    /**
+     * The status check, or {@code null} to presume the repository is clean. Defaults to a check of the
+     * whole working tree.
+     */
+    public Builder statusCheck(GitStatusCheck statusCheck) {
+      this.statusCheck = statusCheck;
+      return this;
+    }
+
+    /**
+     * The watcher to reuse inventories with while refs and the working tree are unchanged, or
+     * {@code null} to always read them again.
+     */
+    public Builder watcher(RepositoryWatcher watcher) {
+      this.watcher = watcher;
+      return this;
+    }
+
+    /**
+     * The cache of scopes read from commit messages, or {@code null} to not cache them.
+     */
+    public Builder scopeCache(CommitScopeCache scopeCache) {
+      this.scopeCache = scopeCache;
+      return this;
+    }
+
+    public GitInventorySupplier build() {
+      return new GitInventorySupplier(this);
     }
   }
 
@@ -263,4 +1049,68 @@ final class GitInventorySupplier implements VcsInventorySupplier {
       return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
     }
   }
+
+  /**
+   * What the history walk needs to remember about a commit once the walk releases it.
+   */
+  private static final class WalkedCommit extends ObjectIdOwnerMap.Entry {
+    private final int commitTime;
+    private final boolean belowTag;
+    private final boolean uninteresting;
+
+    public WalkedCommit(RevCommit commit, RevFlag belowTag) {
+      super(commit);
+      this.commitTime = commit.getCommitTime();
+      this.belowTag = commit.has(belowTag);
+      this.uninteresting = commit.has(RevFlag.UNINTERESTING);
+    }
+
+    public int getCommitTime() {
+      return commitTime;
+    }
+
+    public boolean isBelowTag() {
+      return belowTag;
+    }
+
+    public boolean isUninteresting() {
+      return uninteresting;
+    }
+  }
+
+  private static class History {
+    private final TaggedVersion baseVersion;
+    private final TaggedVersion baseNormal;
+    private final List<ObjectId> commitsSinceBase;
+    private final int oldestCommitTime;
+    private final boolean walkLimitReached;
+
+    public History(TaggedVersion baseVersion, TaggedVersion baseNormal, List<ObjectId> commitsSinceBase, int oldestCommitTime, boolean walkLimitReached) {
+      this.baseVersion = baseVersion;
+      this.baseNormal = baseNormal;
+      this.commitsSinceBase = commitsSinceBase;
+      this.oldestCommitTime = oldestCommitTime;
+      this.walkLimitReached = walkLimitReached;
+    }
+
+    public TaggedVersion getBaseVersion() {
+      return baseVersion;
+    }
+
+    public TaggedVersion getBaseNormal() {
+      return baseNormal;
+    }
+
+    public List<ObjectId> getCommitsSinceBase() {
+      return commitsSinceBase;
+    }
+
+    public int getOldestCommitTime() {
+      return oldestCommitTime;
+    }
+
+    public boolean isWalkLimitReached() {
+      return walkLimitReached;
+    }
+  }
 }
@@ -0,0 +1,120 @@
+package org.ajoberstar.reckon.core;
+
+import java.time.Duration;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Maintains a Git repository so that inference can use its fastest paths: packed refs, a pack with
+ * reachability bitmaps, and a commit-graph.
+ */
+public final class GitMaintenance {
+  private static final Logger logger = LoggerFactory.getLogger(GitMaintenance.class);
+
+  private GitMaintenance() {
+    // do not instantiate
+  }
+
+  /**
+   * Packs refs, repacks objects with reachability bitmaps, and writes a commit-graph, equivalent to
+   * {@code git gc} with {@code gc.writeCommitGraph} enabled. As with {@code git gc}, unreachable loose
+   * objects older than the prune expiry are deleted. Inference is timed before and after, to show the
+   * effect, leaving out the status check, which maintenance doesn't affect.
+   *
+   * @param repo the repository to maintain
+   * @param tagParser a parser used to find versions from tag names when timing inference
+   * @return how long inference took before and after maintenance
+   */
+  public static Report maintain(Repository repo, VersionTagParser tagParser) {
+    var before = timeInference(repo, tagParser);
+
+    var config = repo.getConfig();
+    var commitGraph = config.getString(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_COMMIT_GRAPH);
+    var writeCommitGraph = config.getString(ConfigConstants.CONFIG_GC_SECTION, null, ConfigConstants.CONFIG_KEY_WRITE_COMMIT_GRAPH);
+    var buildBitmaps = config.getString(ConfigConstants.CONFIG_PACK_SECTION, null, ConfigConstants.CONFIG_KEY_BUILD_BITMAPS);
+    try {
+      // only changed in memory, JGit won't write a commit-graph unless it would read one
+      config.setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_COMMIT_GRAPH, true);
+      config.setBoolean(ConfigConstants.CONFIG_GC_SECTION, null, ConfigConstants.CONFIG_KEY_WRITE_COMMIT_GRAPH, true);
+      config.setBoolean(ConfigConstants.CONFIG_PACK_SECTION, null, ConfigConstants.CONFIG_KEY_BUILD_BITMAPS, true);
+      logger.info("Packing refs and objects, and writing commit-graph for {}", repo.getDirectory());
+      Git.wrap(repo).gc().call();
+    } catch (GitAPIException e) {
+      throw new IllegalStateException("Failed to maintain repository: " + e.getMessage(), e);
+    } finally {
+      restore(config, ConfigConstants.CONFIG_CORE_SECTION, ConfigConstants.CONFIG_COMMIT_GRAPH, commitGraph);
+      restore(config, ConfigConstants.CONFIG_GC_SECTION, ConfigConstants.CONFIG_KEY_WRITE_COMMIT_GRAPH, writeCommitGraph);
+      restore(config, ConfigConstants.CONFIG_PACK_SECTION, ConfigConstants.CONFIG_KEY_BUILD_BITMAPS, buildBitmaps);
+    }
+
+    var after = timeInference(repo, tagParser);
+    return new Report(before, after);
+  }
+
+  /**
+   * Times reading the parts of the inventory maintenance speeds up, which is all of it but the status
+   * check. Parts read lazily are forced, as inference reads them.
+   */
+  private static Duration timeInference(Repository repo, VersionTagParser tagParser) {
+    // maintenance doesn't touch the working tree, so leave its scan out of the timing
+    var supplier = GitInventorySupplier.builder(repo, tagParser).statusCheck(null).build();
+    var start = System.nanoTime();
+    var inventory = supplier.getInventory();
+    inventory.getParallelNormals();
+    inventory.getClaimedVersions();
+    inventory.getCommitMessages();
+    return Duration.ofNanos(System.nanoTime() - start);
+  }
+
+  private static void restore(Config config, String section, String name, String value) {
+    if (value == null) {
+      config.unset(section, null, name);
+    } else {
+      config.setString(section, null, name, value);
+    }
+  }
+
+  /**
+   * How long inference took before and after maintenance.
+   */
+  public static final class Report {
+    private final Duration inferenceBefore;
+    private final Duration inferenceAfter;
+
+    Report(Duration inferenceBefore, Duration inferenceAfter) {
+      this.inferenceBefore = inferenceBefore;
+      this.inferenceAfter = inferenceAfter;
+    }
+
+    /**
+     * How long inference took before maintenance.
+     *
+     * @return the duration of inference
+     */
+    public Duration getInferenceBefore() {
+      return inferenceBefore;
+    }
+
+    /**
+     * How long inference took after maintenance.
+     *
+     * @return the duration of inference
+     */
+    public Duration getInferenceAfter() {
+      return inferenceAfter;
+    }
+
+    @Override
+    public String toString() {
+      return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+  }
+}
@@ -0,0 +1,447 @@
+package org.ajoberstar.reckon.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.errors.StopWalkException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.submodule.SubmoduleWalk.IgnoreSubmoduleMode;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.TreeWalk.OperationType;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.IndexDiffFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.SkipWorkTreeFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks whether a repository has uncommitted changes, equivalent to {@code git status}.
+ * <p>
+ * Untracked files can be left out of the check, like {@code git status --untracked-files=no}, in
+ * which case directories that only exist in the working tree are never scanned. Submodules can be
+ * ignored like {@code git status --ignore-submodules}.
+ * <p>
+ * The check can be limited to some paths, so that only those parts of the working tree are walked.
+ * Paths are relative to the root of the working tree and include everything beneath them.
+ * <p>
+ * Given a pool, the index and working tree are split by top-level directory and scanned in parallel.
+ * Once any part is found to have changes, the scans of the others stop, since only whether the
+ * repository is clean matters.
+ * <p>
+ * Either way, the check stops at the first difference found, comparing files to the index by their
+ * size and modification time where it can. The full status is only computed to log the changes.
+ * <p>
+ * This is intentionally package private.
+ */
+final class GitStatusCheck {
+  private static final Logger logger = LoggerFactory.getLogger(GitStatusCheck.class);
+
+  // the order IndexDiff adds its trees in
+  private static final int HEAD_TREE = 0;
+  private static final int INDEX = 1;
+  private static final int WORK_TREE = 2;
+
+  private final Repository repo;
+  private final IgnoreSubmoduleMode ignoreSubmodules;
+  private final TreeFilter filter;
+  private final ForkJoinPool pool;
+  private final String settings;
+
+  public GitStatusCheck(Repository repo) {
+    this(builder(repo));
+  }
+
+  private GitStatusCheck(Builder builder) {
+    this.repo = builder.repo;
+    this.ignoreSubmodules = builder.ignoreSubmodules;
+    this.pool = builder.pool;
+
+    this.filter = and(
+        builder.includePaths.isEmpty() ? null : PathFilterGroup.createFromStrings(builder.includePaths),
+        builder.excludePaths.isEmpty() ? null : new ExcludeFilter(builder.excludePaths),
+        builder.untrackedFiles ? null : new TrackedFilter());
+    this.settings = String.join("\n",
+        "untracked-files " + builder.untrackedFiles,
+        "ignore-submodules " + builder.ignoreSubmodules,
+        "include " + builder.includePaths,
+        "exclude " + builder.excludePaths);
+  }
+
+  /**
+   * Creates a builder of a check of the given repository.
+   */
+  public static Builder builder(Repository repo) {
+    return new Builder(repo);
+  }
+
+  /**
+   * Describes what the check considers a change, so that its results are only reused for checks that
+   * consider the same changes.
+   */
+  String getSettings() {
+    return settings;
+  }
+
+  public boolean isClean() {
+    try {
+      var clean = pool == null ? isClean(repo.readDirCache(), filter, () -> false) : scanInParallel();
+      // the full status is only worth computing if it will be logged
+      if (!clean && logger.isInfoEnabled()) {
+        var status = diff(filter);
+        logger.info("Git repository is not clean: added={}, changed={}, removed={}, untracked={}, modified={}, missing={}",
+            status.getAdded(),
+            status.getChanged(),
+            status.getRemoved(),
+            status.getUntracked(),
+            status.getModified(),
+            status.getMissing());
+      }
+      return clean;
+    } catch (IOException | UncheckedIOException e) {
+      logger.error("Failed to determine status of repository. Assuming not clean.", e);
+      // TODO should this throw up?
+      return false;
+    }
+  }
+
+  /**
+   * Walks HEAD, the index, and the working tree the same way {@link IndexDiff} does, but stops at the
+   * first difference. Working tree files are compared to the index by their size and modification
+   * time, only reading their content if the index can't vouch for them, as when they were modified
+   * too close to when the index was written. Once cancelled, the walk stops and submodules aren't
+   * checked.
+   */
+  private boolean isClean(DirCache index, TreeFilter filter, BooleanSupplier cancelled) throws IOException {
+    try (var walk = new TreeWalk(repo)) {
+      walk.setOperationType(OperationType.CHECKIN_OP);
+      walk.setRecursive(true);
+
+      var head = repo.resolve(Constants.HEAD + "^{tree}");
+      if (head == null) {
+        walk.addTree(new EmptyTreeIterator());
+      } else {
+        walk.addTree(head);
+      }
+      walk.addTree(new DirCacheIterator(index));
+      var workTree = new FileTreeIterator(repo);
+      walk.addTree(workTree);
+      workTree.setDirCacheIterator(walk, INDEX);
+
+      var submodules = new ArrayList<String>();
+      walk.setFilter(and(filter, new SubmoduleFilter(submodules), new SkipWorkTreeFilter(INDEX), new IndexDiffFilter(INDEX, WORK_TREE)));
+
+      // only paths that differ between HEAD, the index, and the working tree get through the filter
+      if (walk.next()) {
+        return false;
+      }
+      // another scan already found changes, so the answer is known without diffing submodules
+      if (cancelled.getAsBoolean()) {
+        return false;
+      }
+      // leave the finer points of submodules, like their ignore settings, to IndexDiff
+      return submodules.isEmpty() || diff(and(filter, PathFilterGroup.createFromStrings(submodules))).isClean();
+    }
+  }
+
+  private Status diff(TreeFilter filter) throws IOException {
+    var diff = new IndexDiff(repo, Constants.HEAD, new FileTreeIterator(repo));
+    if (ignoreSubmodules != null) {
+      diff.setIgnoreSubmoduleMode(ignoreSubmodules);
+    }
+    if (filter != null) {
+      diff.setFilter(filter);
+    }
+    diff.diff();
+    return new Status(diff);
+  }
+
+  /**
+   * Scans each partition in the pool, all reading the same index. Scans only update the entries of
+   * their own partition, as they're found to be clean.
+   */
+  private boolean scanInParallel() throws IOException {
+    var index = repo.readDirCache();
+    // iterators build the cache tree on first use, so build it before they're shared
+    index.getCacheTree(true);
+    var dirty = new AtomicBoolean();
+    var scans = partition(index, pool.getParallelism()).stream()
+        .map(partition -> new PartitionScan(index, and(new CancelFilter(dirty), partition, filter), dirty))
+        .collect(Collectors.toList());
+    pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(scans)));
+    return scans.stream().allMatch(ForkJoinTask::join);
+  }
+
+  /**
+   * Splits the working tree into at most {@code count} groups of top-level entries, balanced by how many
+   * index entries are under each, plus one for everything at the top level that isn't in the index.
+   */
+  private static List<TreeFilter> partition(DirCache index, int count) {
+    var sizes = new LinkedHashMap<String, Integer>();
+    for (var i = 0; i < index.getEntryCount(); i++) {
+      var path = index.getEntry(i).getPathString();
+      var slash = path.indexOf('/');
+      sizes.merge(slash < 0 ? path : path.substring(0, slash), 1, Integer::sum);
+    }
+
+    var groups = new ArrayList<List<String>>();
+    var loads = new int[Math.min(count, sizes.size())];
+    for (var i = 0; i < loads.length; i++) {
+      groups.add(new ArrayList<>());
+    }
+
+    // largest first, each into the least loaded group
+    var largestFirst = sizes.entrySet().stream()
+        .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+        .collect(Collectors.toList());
+    for (var entry : largestFirst) {
+      var least = 0;
+      for (var i = 1; i < loads.length; i++) {
+        if (loads[i] < loads[least]) {
+          least = i;
+        }
+      }
+      groups.get(least).add(entry.getKey());
+      loads[least] += entry.getValue();
+    }
+
+    var partitions = groups.stream()
+        .map(PathFilterGroup::createFromStrings)
+        .collect(Collectors.toCollection(ArrayList::new));
+    partitions.add(new ExcludeFilter(sizes.keySet()));
+    return partitions;
+  }
+
+  private static TreeFilter and(TreeFilter... all) {
+    var filters = Arrays.stream(all)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+    if (filters.isEmpty()) {
+      return null;
+    } else if (filters.size() == 1) {
+      return filters.get(0);
+    } else {
+      return AndTreeFilter.create(filters);
+    }
+  }
+
+  /**
+   * Builds a {@link GitStatusCheck}. By default, the whole working tree is checked on one thread,
+   * including untracked files, with each submodule's ignore setting from {@code .gitmodules}.
+   */
+  public static final class Builder {
+    private final Repository repo;
+    private boolean untrackedFiles = true;
+    private IgnoreSubmoduleMode ignoreSubmodules;
+    private Collection<String> includePaths = List.of();
+    private Collection<String> excludePaths = List.of();
+    private ForkJoinPool pool;
+
+    private Builder(Repository repo) {
+      this.repo = Objects.requireNonNull(repo, "Must provide a repository.");
+    }
+
+    /**
+     * Whether untracked files count as changes.
+     */
+    public Builder untrackedFiles(boolean untrackedFiles) {
+      this.untrackedFiles = untrackedFiles;
+      return this;
+    }
+
+    /**
+     * Which submodule changes to ignore, or {@code null} to use each submodule's setting.
+     */
+    public Builder ignoreSubmodules(IgnoreSubmoduleMode ignoreSubmodules) {
+      this.ignoreSubmodules = ignoreSubmodules;
+      return this;
+    }
+
+    /**
+     * The paths to check (all if empty), minus the excluded ones.
+     */
+    public Builder paths(Collection<String> includePaths, Collection<String> excludePaths) {
+      this.includePaths = Objects.requireNonNull(includePaths, "Includes cannot be null.");
+      this.excludePaths = Objects.requireNonNull(excludePaths, "Excludes cannot be null.");
+      return this;
+    }
+
+    /**
+     * The pool to check in parallel with, or {@code null} to check on one thread.
+     */
+    public Builder pool(ForkJoinPool pool) {
+      this.pool = pool;
+      return this;
+    }
+
+    public GitStatusCheck build() {
+      return new GitStatusCheck(this);
+    }
+  }
+
+  private final class PartitionScan extends RecursiveTask<Boolean> {
+    private static final long serialVersionUID = 1L;
+
+    private final transient DirCache index;
+    private final transient TreeFilter filter;
+    private final AtomicBoolean dirty;
+
+    public PartitionScan(DirCache index, TreeFilter filter, AtomicBoolean dirty) {
+      this.index = index;
+      this.filter = filter;
+      this.dirty = dirty;
+    }
+
+    @Override
+    protected Boolean compute() {
+      try {
+        var clean = isClean(index, filter, dirty::get);
+        if (!clean) {
+          dirty.set(true);
+        }
+        return clean;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Stops the walk once another scan has found changes.
+   */
+  private static final class CancelFilter extends TreeFilter {
+    private final AtomicBoolean dirty;
+
+    public CancelFilter(AtomicBoolean dirty) {
+      this.dirty = dirty;
+    }
+
+    @Override
+    public boolean include(TreeWalk walker) {
+      if (dirty.get()) {
+        throw StopWalkException.INSTANCE;
+      }
+      return true;
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+      return false;
+    }
+
+    @Override
+    public TreeFilter clone() {
+      return this;
+    }
+  }
+
+  /**
+   * Collects submodules instead of including them, since whether they're clean depends on more than
+   * their entries.
+   */
+  private static final class SubmoduleFilter extends TreeFilter {
+    private final List<String> submodules;
+
+    public SubmoduleFilter(List<String> submodules) {
+      this.submodules = submodules;
+    }
+
+    @Override
+    public boolean include(TreeWalk walker) {
+      for (var i = 0; i < walker.getTreeCount(); i++) {
+        if (FileMode.GITLINK.equals(walker.getRawMode(i))) {
+          submodules.add(walker.getPathString());
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+      return false;
+    }
+
+    @Override
+    public TreeFilter clone() {
+      return this;
+    }
+  }
+
+  /**
+   * Excludes the given paths and everything beneath them. Unlike negating a {@link PathFilterGroup},
+   * this still walks the directories that contain them.
+   */
+  private static final class ExcludeFilter extends TreeFilter {
+    private final List<PathFilter> paths;
+
+    public ExcludeFilter(Collection<String> paths) {
+      this.paths = paths.stream()
+          .map(PathFilter::create)
+          .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean include(TreeWalk walker) {
+      // 0 means the entry is the path or beneath it, -1 that it's a parent of the path
+      return paths.stream().noneMatch(path -> path.matchFilter(walker) == 0);
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+      return paths.stream().anyMatch(PathFilter::shouldBeRecursive);
+    }
+
+    @Override
+    public TreeFilter clone() {
+      return this;
+    }
+  }
+
+  /**
+   * Excludes anything that's only in the working tree, without descending into it. Walks of only the
+   * index, as for submodules, include everything.
+   */
+  private static final class TrackedFilter extends TreeFilter {
+    @Override
+    public boolean include(TreeWalk walker) {
+      if (walker.getTreeCount() <= INDEX) {
+        return true;
+      }
+      return walker.getRawMode(HEAD_TREE) != 0 || walker.getRawMode(INDEX) != 0;
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+      return false;
+    }
+
+    @Override
+    public TreeFilter clone() {
+      return this;
+    }
+  }
+}
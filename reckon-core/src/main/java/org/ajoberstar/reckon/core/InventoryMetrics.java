@@ -0,0 +1,113 @@
+package org.ajoberstar.reckon.core;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * Counters describing the work done to produce an inventory, logged at debug level to help diagnose
+ * slow inference.
+ * <p>
+ * This is intentionally package private.
+ */
+final class InventoryMetrics {
+  private int tagRefs;
+  private int skippedTagRefs;
+  private boolean commitGraph;
+  private boolean bitmapIndex;
+  private int prunedCandidates;
+  private int parallelWalkCommits;
+  private int peakRetainedCommits;
+  private int recycles;
+
+  void tagRef(boolean skipped) {
+    tagRefs++;
+    if (skipped) {
+      skippedTagRefs++;
+    }
+  }
+
+  /**
+   * Number of refs found under {@code refs/tags/}.
+   */
+  public int getTagRefs() {
+    return tagRefs;
+  }
+
+  /**
+   * Number of tag refs skipped without being peeled, because their names weren't versions.
+   */
+  public int getSkippedTagRefs() {
+    return skippedTagRefs;
+  }
+
+  void setCommitGraph(boolean commitGraph) {
+    this.commitGraph = commitGraph;
+  }
+
+  /**
+   * Whether generation numbers from a commit-graph were available.
+   */
+  public boolean isCommitGraph() {
+    return commitGraph;
+  }
+
+  void setBitmapIndex(boolean bitmapIndex) {
+    this.bitmapIndex = bitmapIndex;
+  }
+
+  /**
+   * Whether a reachability bitmap index was available.
+   */
+  public boolean isBitmapIndex() {
+    return bitmapIndex;
+  }
+
+  void candidatePruned() {
+    prunedCandidates++;
+  }
+
+  /**
+   * Number of parallel branch candidates ruled out because they were older than the clock skew window.
+   */
+  public int getPrunedCandidates() {
+    return prunedCandidates;
+  }
+
+  void parallelWalkCommit() {
+    parallelWalkCommits++;
+  }
+
+  /**
+   * Number of commits visited while looking for versions on parallel branches.
+   */
+  public int getParallelWalkCommits() {
+    return parallelWalkCommits;
+  }
+
+  void commitsRetained(int retained) {
+    peakRetainedCommits = Math.max(peakRetainedCommits, retained);
+  }
+
+  /**
+   * Most commits held in memory by the walk at once.
+   */
+  public int getPeakRetainedCommits() {
+    return peakRetainedCommits;
+  }
+
+  void walkRecycled() {
+    recycles++;
+  }
+
+  /**
+   * Number of times the history walk released its commits to stay within the memory budget.
+   */
+  public int getRecycles() {
+    return recycles;
+  }
+
+  @Override
+  public String toString() {
+    return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+  }
+}
@@ -0,0 +1,326 @@
+package org.ajoberstar.reckon.core;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.eclipse.jgit.util.RawParseUtils;
+
+/**
+ * Reads scopes from commit messages following any number of conventions at once, such as
+ * Conventional Commits types and footers alongside legacy keywords. The most significant scope found
+ * anywhere in the message is returned.
+ * <p>
+ * All the rules are compiled into one automaton (Aho-Corasick), so each message is scanned once, no
+ * matter how many rules there are, stopping early if MAJOR is found. Keywords are case-sensitive.
+ * <p>
+ * Before v1, MAJOR is read as MINOR, unless it came from a breaking subject like
+ * {@code type!: subject}, which can force an upgrade to 1.0.0.
+ *
+ * @see #builder()
+ */
+public final class KeywordScopeParser implements CommitMessageScopeParser {
+  // bump this whenever the scope read from a message by the same rules changes
+  private static final String FINGERPRINT_PREFIX = "keywords:1:";
+
+  private final int[][] transitions;
+  private final Rule[][] matches;
+  private final boolean ascii;
+  private final String fingerprint;
+
+  private KeywordScopeParser(List<Rule> rules) {
+    var goTo = new ArrayList<int[]>();
+    var ruleLists = new ArrayList<List<Rule>>();
+    goTo.add(newState());
+    ruleLists.add(new ArrayList<>());
+
+    for (var rule : rules) {
+      var state = 0;
+      for (var b : rule.keyword) {
+        var next = goTo.get(state)[b & 0xff];
+        if (next < 0) {
+          next = goTo.size();
+          goTo.get(state)[b & 0xff] = next;
+          goTo.add(newState());
+          ruleLists.add(new ArrayList<>());
+        }
+        state = next;
+      }
+      ruleLists.get(state).add(rule);
+    }
+
+    // fill in every transition, falling back to the longest suffix that's also a prefix of a keyword
+    var fail = new int[goTo.size()];
+    var queue = new ArrayDeque<Integer>();
+    for (var c = 0; c < 256; c++) {
+      var child = goTo.get(0)[c];
+      if (child < 0) {
+        goTo.get(0)[c] = 0;
+      } else {
+        fail[child] = 0;
+        queue.add(child);
+      }
+    }
+    while (!queue.isEmpty()) {
+      var state = queue.remove();
+      // keywords ending at the fallback also end here
+      ruleLists.get(state).addAll(ruleLists.get(fail[state]));
+      for (var c = 0; c < 256; c++) {
+        var child = goTo.get(state)[c];
+        if (child < 0) {
+          goTo.get(state)[c] = goTo.get(fail[state])[c];
+        } else {
+          fail[child] = goTo.get(fail[state])[c];
+          queue.add(child);
+        }
+      }
+    }
+
+    this.transitions = goTo.toArray(new int[0][]);
+    this.matches = ruleLists.stream().map(list -> list.toArray(new Rule[0])).toArray(Rule[][]::new);
+    this.ascii = rules.stream().allMatch(Rule::isAscii);
+    this.fingerprint = rules.stream()
+        .map(Rule::getFingerprint)
+        .collect(Collectors.joining(",", FINGERPRINT_PREFIX, ""));
+  }
+
+  private static int[] newState() {
+    var state = new int[256];
+    Arrays.fill(state, -1);
+    return state;
+  }
+
+  /**
+   * Creates a builder of a parser with no rules.
+   *
+   * @return a builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public Optional<String> getFingerprint() {
+    return Optional.of(fingerprint);
+  }
+
+  @Override
+  public Optional<Scope> parse(String messageBody, boolean preV1) {
+    return scan(messageBody.getBytes(UTF_8), 0, preV1);
+  }
+
+  /**
+   * Scans the raw message without decoding it, if every keyword is ASCII and the commit is encoded in
+   * UTF-8. Decoding can only change what bytes outside of ASCII mean, which such keywords never
+   * match.
+   */
+  @Override
+  public Optional<Scope> parseRawCommit(byte[] rawCommit, boolean preV1) {
+    var start = RawParseUtils.commitMessage(rawCommit, 0);
+    if (start < 0) {
+      return Optional.empty();
+    }
+    if (!ascii || !UTF_8.equals(RawParseUtils.guessEncoding(rawCommit))) {
+      return parse(CommitMessage.decode(rawCommit), preV1);
+    }
+    return scan(rawCommit, start, preV1);
+  }
+
+  private Optional<Scope> scan(byte[] buffer, int start, boolean preV1) {
+    Scope max = null;
+    var state = 0;
+    for (var i = start; i < buffer.length && max != Scope.MAJOR; i++) {
+      state = transitions[state][buffer[i] & 0xff];
+      for (var rule : matches[state]) {
+        var scope = rule.match(buffer, start, i + 1 - rule.keyword.length, i + 1, preV1);
+        if (scope != null && (max == null || scope.compareTo(max) > 0)) {
+          max = scope;
+        }
+      }
+    }
+    return Optional.ofNullable(max);
+  }
+
+  /**
+   * Builds a {@link KeywordScopeParser}. Rules can be added in any order.
+   */
+  public static final class Builder {
+    private final List<Rule> rules = new ArrayList<>();
+
+    private Builder() {}
+
+    /**
+     * Reads the given scope from messages whose subject starts with the type, like
+     * {@code type(area): subject} or {@code type: subject}. A {@code !} before the colon, like
+     * {@code type!: subject}, marks a breaking change and is read as MAJOR, even before v1.
+     *
+     * @param type the type the subject starts with
+     * @param scope the scope of the type
+     * @return this builder
+     */
+    public Builder subjectType(String type, Scope scope) {
+      rules.add(new Rule(RuleKind.SUBJECT, type, Objects.requireNonNull(scope, "Scope cannot be null.")));
+      return this;
+    }
+
+    /**
+     * Recognizes the type only to read breaking changes, like {@code type!: subject}, as MAJOR, even
+     * before v1. Otherwise, messages with the type have no scope.
+     *
+     * @param type the type the subject starts with
+     * @return this builder
+     */
+    public Builder subjectType(String type) {
+      rules.add(new Rule(RuleKind.SUBJECT, type, null));
+      return this;
+    }
+
+    /**
+     * Reads the given scope from messages with a line starting with the token, followed by
+     * {@code ": "} or {@code " #"}, like the {@code BREAKING CHANGE: description} footer.
+     *
+     * @param token the token the line starts with
+     * @param scope the scope of the token
+     * @return this builder
+     */
+    public Builder footer(String token, Scope scope) {
+      rules.add(new Rule(RuleKind.FOOTER, token, Objects.requireNonNull(scope, "Scope cannot be null.")));
+      return this;
+    }
+
+    /**
+     * Reads the given scope from messages containing the keyword anywhere, like a legacy
+     * {@code [major]} tag.
+     *
+     * @param keyword the keyword to find
+     * @param scope the scope of the keyword
+     * @return this builder
+     */
+    public Builder keyword(String keyword, Scope scope) {
+      rules.add(new Rule(RuleKind.KEYWORD, keyword, Objects.requireNonNull(scope, "Scope cannot be null.")));
+      return this;
+    }
+
+    /**
+     * Adds the rules of <a href="https://www.conventionalcommits.org/en/v1.0.0/">Conventional
+     * Commits</a>. {@code feat} is MINOR and {@code fix} is PATCH. The other common types only count
+     * when marked breaking with a {@code !}. {@code BREAKING CHANGE} and {@code BREAKING-CHANGE}
+     * footers are MAJOR.
+     *
+     * @return this builder
+     */
+    public Builder conventionalCommits() {
+      subjectType("feat", Scope.MINOR);
+      subjectType("fix", Scope.PATCH);
+      for (var type : List.of("build", "chore", "ci", "docs", "perf", "refactor", "revert", "style", "test")) {
+        subjectType(type);
+      }
+      footer("BREAKING CHANGE", Scope.MAJOR);
+      footer("BREAKING-CHANGE", Scope.MAJOR);
+      return this;
+    }
+
+    public KeywordScopeParser build() {
+      return new KeywordScopeParser(rules);
+    }
+  }
+
+  private enum RuleKind {
+    SUBJECT, FOOTER, KEYWORD
+  }
+
+  private static final class Rule {
+    private final RuleKind kind;
+    private final byte[] keyword;
+    private final Scope scope;
+
+    public Rule(RuleKind kind, String keyword, Scope scope) {
+      if (keyword == null || keyword.isEmpty()) {
+        throw new IllegalArgumentException("Keyword cannot be null or empty.");
+      }
+      this.kind = kind;
+      this.keyword = keyword.getBytes(UTF_8);
+      this.scope = scope;
+    }
+
+    /**
+     * Identifies the rule, hex encoding the keyword, so it can't be confused with the separators.
+     */
+    public String getFingerprint() {
+      var hex = new StringBuilder();
+      for (var b : keyword) {
+        hex.append(String.format("%02x", b));
+      }
+      return kind + ":" + scope + ":" + hex;
+    }
+
+    public boolean isAscii() {
+      for (var b : keyword) {
+        if (b < 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * The scope of the keyword found between from and to, or null if it isn't in a place the rule
+     * applies to.
+     */
+    public Scope match(byte[] buffer, int start, int from, int to, boolean preV1) {
+      switch (kind) {
+        case SUBJECT:
+          return from == start ? matchSubject(buffer, to, preV1) : null;
+        case FOOTER:
+          if (from != start && buffer[from - 1] != '\n') {
+            return null;
+          }
+          var separated = buffer.length - to >= 3
+              && (buffer[to] == ':' && buffer[to + 1] == ' ' || buffer[to] == ' ' && buffer[to + 1] == '#')
+              && buffer[to + 2] != '\n';
+          return separated ? adjust(scope, preV1) : null;
+        case KEYWORD:
+          return adjust(scope, preV1);
+        default:
+          throw new AssertionError("Unhandled rule kind: " + kind);
+      }
+    }
+
+    /**
+     * Matches the optional {@code (area)} and {@code !} after the type, and then {@code ": "}
+     * followed by at least one character on the same line.
+     */
+    private Scope matchSubject(byte[] buffer, int ptr, boolean preV1) {
+      if (ptr < buffer.length && buffer[ptr] == '(') {
+        do {
+          ptr++;
+          if (ptr == buffer.length || buffer[ptr] == '\n') {
+            return null;
+          }
+        } while (buffer[ptr] != ')');
+        ptr++;
+      }
+
+      var breaking = ptr < buffer.length && buffer[ptr] == '!';
+      if (breaking) {
+        ptr++;
+      }
+
+      if (buffer.length - ptr < 3 || buffer[ptr] != ':' || buffer[ptr + 1] != ' ' || buffer[ptr + 2] == '\n') {
+        return null;
+      }
+      // like major!, breaking changes force use of major, ignoring preV1 checks
+      return breaking ? Scope.MAJOR : adjust(scope, preV1);
+    }
+
+    private static Scope adjust(Scope scope, boolean preV1) {
+      return preV1 && scope == Scope.MAJOR ? Scope.MINOR : scope;
+    }
+  }
+}
@@ -0,0 +1,287 @@
+package org.ajoberstar.reckon.core;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.CommitTimeRevFilter;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds the normal versions being developed on branches parallel to HEAD. A tagged commit is
+ * parallel if it isn't in HEAD's history, HEAD isn't in its history, they have a merge base, and
+ * no tagged commit is between HEAD and that merge base.
+ * <p>
+ * Rather than walking history separately for every candidate, this answers all of them in one
+ * topologically sorted walk from HEAD and the candidates. Reachability from HEAD is carried as a
+ * flag. Each candidate outside of HEAD's history propagates its index down to its parents until
+ * it reaches a commit in HEAD's history, which is then its nearest merge base. Each merge base
+ * propagates its own index down, so we know which tagged commits in HEAD's history it reaches.
+ * <p>
+ * Only the target normals matter to inference (whether the next version is already taken by another
+ * branch), so only tagged commits with one of those normals are evaluated as candidates. If there
+ * are none, the walk is skipped entirely. If the repository has reachability bitmaps, tagged commits
+ * in HEAD's history (or with HEAD in theirs) are ruled out with them first, often leaving none.
+ * <p>
+ * Once every candidate's merge base is known, and every commit left to visit is reachable from all of
+ * the merge bases, no tagged commit left to visit can be between HEAD and a merge base, so the walk
+ * stops. If generation numbers are available, commits are visited in order of descending generation
+ * rather than topologically, so stopping early also avoids reading the rest of history. A topological
+ * sort has to read all of history before producing anything.
+ * <p>
+ * Optionally, commits older than a cutoff can be ignored entirely, presuming no commit is dated
+ * further before its parents than the clock skew that cutoff allows for. Any candidate older than the
+ * cutoff is pruned, and the walk stops once it reaches commits older than the cutoff.
+ * <p>
+ * This is intentionally package private.
+ */
+final class ParallelVersionFinder {
+  private static final Logger logger = LoggerFactory.getLogger(ParallelVersionFinder.class);
+
+  private final RevWalk walk;
+  private final CommitGenerations generations;
+  private final BitmapAncestry ancestry;
+  private final InventoryMetrics metrics;
+
+  public ParallelVersionFinder(RevWalk walk, CommitGenerations generations, BitmapAncestry ancestry, InventoryMetrics metrics) {
+    this.walk = walk;
+    this.generations = generations;
+    this.ancestry = ancestry;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Finds the target normals tagged on branches parallel to HEAD, ignoring any commits with a commit
+   * time (in seconds) before the cutoff. Use {@link Integer#MIN_VALUE} to consider all commits.
+   */
+  public Set<Version> find(RevCommit head, Map<RevCommit, List<Version>> versionsByCommit, Set<Version> targetNormals, int cutoff) throws IOException {
+    var targetedCommits = versionsByCommit.entrySet().stream()
+        .filter(entry -> entry.getValue().stream().map(Version::getNormal).anyMatch(targetNormals::contains))
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toSet());
+
+    // candidates too old to be descendants of any possible merge base
+    var iterator = targetedCommits.iterator();
+    while (iterator.hasNext()) {
+      var commit = iterator.next();
+      walk.parseHeaders(commit);
+      if (commit.getCommitTime() < cutoff) {
+        iterator.remove();
+        metrics.candidatePruned();
+      }
+    }
+
+    if (ancestry.isAvailable()) {
+      // candidates in HEAD's history, or with HEAD in theirs, can't be parallel
+      iterator = targetedCommits.iterator();
+      while (iterator.hasNext()) {
+        var commit = iterator.next();
+        if (ancestry.isMergedInto(commit, head) || ancestry.isMergedInto(head, commit)) {
+          iterator.remove();
+        }
+      }
+    }
+
+    if (targetedCommits.isEmpty()) {
+      logger.debug("No tagged versions with target normals {} outside HEAD's history. Skipping parallel branch detection.", targetNormals);
+      return Collections.emptySet();
+    }
+
+    walk.reset();
+    var fromHead = walk.newFlag("FROM_HEAD");
+    try {
+      // stops the walk once it reaches commits older than the cutoff
+      walk.setRevFilter(cutoff == Integer.MIN_VALUE ? RevFilter.ALL : CommitTimeRevFilter.after(cutoff * 1000L));
+      walk.carry(fromHead);
+
+      head.add(fromHead);
+      walk.markStart(head);
+      // tagged commits outside of HEAD's history that aren't candidates can't change the answer
+      walk.markStart(targetedCommits);
+
+      // children before parents, so everything that can reach a commit is known when it's produced
+      CommitSource commits;
+      if (generations.isAvailable()) {
+        commits = new GenerationOrder(targetedCommits, head, fromHead, cutoff);
+      } else {
+        walk.sort(RevSort.TOPO);
+        commits = walk::next;
+      }
+
+      var candidates = new ArrayList<RevCommit>();
+      var candidateBases = new HashMap<Integer, RevCommit>();
+      var candidatesReaching = new HashMap<RevCommit, BitSet>();
+
+      var mergeBases = new HashMap<RevCommit, Integer>();
+      var basesReaching = new HashMap<RevCommit, BitSet>();
+      var taggedSinceBase = new BitSet();
+      var taggedFromHead = false;
+
+      var remainingTargeted = targetedCommits.size();
+      // parents of commits in HEAD's history that haven't been produced yet
+      var frontier = new HashSet<RevCommit>();
+
+      RevCommit commit;
+      while ((commit = commits.next()) != null) {
+        metrics.parallelWalkCommit();
+        var tagged = versionsByCommit.containsKey(commit);
+        var reachingCandidates = candidatesReaching.remove(commit);
+        var reachingBases = basesReaching.remove(commit);
+
+        if (!commit.has(fromHead)) {
+          if (targetedCommits.contains(commit)) {
+            reachingCandidates = withBit(reachingCandidates, candidates.size());
+            candidates.add(commit);
+          }
+          propagate(commit, reachingCandidates, candidatesReaching);
+        } else {
+          if (reachingCandidates != null) {
+            // the first commit in HEAD's history that a candidate reaches is its nearest merge base
+            var base = mergeBases.size();
+            mergeBases.put(commit, base);
+            // any tagged commit in HEAD's history produced before a base can't be reachable from it
+            taggedSinceBase.set(base, taggedFromHead);
+            var mergeBase = commit;
+            reachingCandidates.stream().forEach(candidate -> candidateBases.putIfAbsent(candidate, mergeBase));
+            reachingBases = withBit(reachingBases, base);
+          }
+
+          if (tagged) {
+            taggedFromHead = true;
+            // any base that doesn't reach this commit has a tagged commit since it
+            for (var base : mergeBases.values()) {
+              if (reachingBases == null || !reachingBases.get(base)) {
+                taggedSinceBase.set(base);
+              }
+            }
+          }
+          propagate(commit, reachingBases, basesReaching);
+        }
+
+        frontier.remove(commit);
+        if (commit.has(fromHead)) {
+          frontier.addAll(Arrays.asList(commit.getParents()));
+        }
+        if (targetedCommits.contains(commit)) {
+          remainingTargeted--;
+        }
+        // once every candidate found its base, only tagged commits some base doesn't reach matter
+        if (remainingTargeted == 0 && candidatesReaching.isEmpty() && reachedByAll(frontier, basesReaching, mergeBases.size())) {
+          break;
+        }
+      }
+
+      var parallel = new HashSet<Version>();
+      for (var i = 0; i < candidates.size(); i++) {
+        var candidate = candidates.get(i);
+        var base = candidateBases.get(i);
+        if (base == null) {
+          logger.debug("No merge base between HEAD and {}.", candidate.name());
+        } else if (base.equals(head)) {
+          logger.debug("HEAD is in the history of {}.", candidate.name());
+        } else if (taggedSinceBase.get(mergeBases.get(base))) {
+          logger.debug("Tagged commit between HEAD and merge base {} with {}.", base.name(), candidate.name());
+        } else {
+          versionsByCommit.get(candidate).stream()
+              .map(Version::getNormal)
+              .filter(targetNormals::contains)
+              .forEach(parallel::add);
+        }
+      }
+      return parallel;
+    } finally {
+      walk.reset();
+      walk.disposeFlag(fromHead);
+      walk.sort(RevSort.NONE);
+      walk.setRevFilter(RevFilter.ALL);
+    }
+  }
+
+  private static BitSet withBit(BitSet bits, int index) {
+    var result = bits == null ? new BitSet() : bits;
+    result.set(index);
+    return result;
+  }
+
+  /**
+   * Whether every commit is reachable from all of the merge bases, in which case so is everything in
+   * their history.
+   */
+  private static boolean reachedByAll(Set<RevCommit> commits, Map<RevCommit, BitSet> basesReaching, int bases) {
+    if (bases == 0) {
+      return true;
+    }
+    for (var commit : commits) {
+      var reaching = basesReaching.get(commit);
+      if (reaching == null || reaching.cardinality() < bases) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void propagate(RevCommit commit, BitSet bits, Map<RevCommit, BitSet> reaching) {
+    if (bits == null) {
+      return;
+    }
+    for (var parent : commit.getParents()) {
+      reaching.computeIfAbsent(parent, p -> new BitSet()).or(bits);
+    }
+  }
+
+  private interface CommitSource {
+    RevCommit next() throws IOException;
+  }
+
+  /**
+   * Produces commits in order of descending generation, carrying a flag from children to parents like
+   * the walk would. Commits older than the cutoff are never produced.
+   */
+  private final class GenerationOrder implements CommitSource {
+    private final Set<RevCommit> seen = new HashSet<>();
+    private final Map<RevCommit, Integer> generationOf = new HashMap<>();
+    private final PriorityQueue<RevCommit> pending = new PriorityQueue<>(Comparator.comparing(generationOf::get, Comparator.reverseOrder()));
+    private final RevFlag carried;
+    private final int cutoff;
+
+    public GenerationOrder(Collection<RevCommit> starts, RevCommit head, RevFlag carried, int cutoff) throws IOException {
+      this.carried = carried;
+      this.cutoff = cutoff;
+      add(head);
+      for (var start : starts) {
+        add(start);
+      }
+    }
+
+    private void add(RevCommit commit) throws IOException {
+      if (seen.add(commit)) {
+        walk.parseHeaders(commit);
+        if (commit.getCommitTime() >= cutoff) {
+          generationOf.put(commit, generations.get(commit));
+          pending.add(commit);
+        }
+      }
+    }
+
+    @Override
+    public RevCommit next() throws IOException {
+      var commit = pending.poll();
+      if (commit == null) {
+        return null;
+      }
+      for (var parent : commit.getParents()) {
+        if (commit.has(carried)) {
+          parent.add(carried);
+        }
+        add(parent);
+      }
+      return commit;
+    }
+  }
+}
@@ -1,16 +1,22 @@
 package org.ajoberstar.reckon.core;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.submodule.SubmoduleWalk.IgnoreSubmoduleMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -91,8 +97,9 @@ public final class Reckoner {
     var targetNormal = inventory.getBaseNormal().incrementNormal(scope);
     var probableStage = stageCalc.calculate(inventory, targetNormal);
 
-    // if a version's already being developed on a parallel branch we'll skip it
-    if (inventory.getParallelNormals().contains(targetNormal) && probableStage.isPresent()) {
+    // if a version's already being developed on a parallel branch we'll skip it (only looking for
+    // parallel versions if it matters, since that takes another walk)
+    if (probableStage.isPresent() && inventory.getParallelNormals().contains(targetNormal)) {
       if (scope.compareTo(parallelBranchScope) < 0) {
         logger.debug("Skipping {} as it's being developed on a parallel branch. While {} was requested, parallel branches claim a {}, using that instead.", targetNormal, scope, parallelBranchScope);
         targetNormal = targetNormal.incrementNormal(parallelBranchScope);
@@ -155,6 +162,22 @@ public final class Reckoner {
   public static final class Builder {
     private Clock clock;
     private VcsInventorySupplier inventorySupplier;
+    private Repository repo;
+    private VersionTagParser tagParser;
+    private VcsInventoryCache inventoryCache;
+    private CommitScopeCache scopeCache;
+    private Duration clockSkewWindow;
+    private int maxWalkDepth = Integer.MAX_VALUE;
+    private WalkLimitPolicy walkLimitPolicy = WalkLimitPolicy.NO_BASE;
+    private int maxRetainedCommits = Integer.MAX_VALUE;
+    private boolean firstParent;
+    private Executor statusExecutor;
+    private boolean untrackedFiles = true;
+    private IgnoreSubmoduleMode ignoreSubmodules;
+    private Collection<String> statusIncludes = List.of();
+    private Collection<String> statusExcludes = List.of();
+    private ForkJoinPool statusPool;
+    private RepositoryWatcher watcher;
     private ScopeCalculator scopeCalc;
     private StageCalculator stageCalc;
     private Scope defaultInferredScope;
@@ -169,6 +192,7 @@ public final class Reckoner {
 
     Builder vcs(VcsInventorySupplier inventorySupplier) {
       this.inventorySupplier = inventorySupplier;
+      this.repo = null;
       return this;
     }
 
@@ -193,9 +217,193 @@ public final class Reckoner {
       if (repo == null) {
         this.inventorySupplier = () -> VcsInventory.empty(false);
       } else {
-        var realParser = Optional.ofNullable(tagParser).orElse(VersionTagParser.getDefault());
-        this.inventorySupplier = new GitInventorySupplier(repo, realParser);
+        this.inventorySupplier = null;
       }
+      this.repo = repo;
+      this.tagParser = Optional.ofNullable(tagParser).orElse(VersionTagParser.getDefault());
+      return this;
+    }
+
+    /**
+     * Use the given cache to reuse inventories from prior runs when the repository's HEAD and tags
+     * haven't changed. Only applies to Git repositories and tag parsers with a fingerprint. Defaults to
+     * no caching.
+     *
+     * @param inventoryCache the cache to use or {@code null} to disable caching
+     * @return this builder
+     * @see VcsInventoryCache#ofRepository(Repository)
+     * @see VersionTagParser#getFingerprint()
+     */
+    public Builder inventoryCache(VcsInventoryCache inventoryCache) {
+      this.inventoryCache = inventoryCache;
+      return this;
+    }
+
+    /**
+     * Use the given cache to reuse the scopes read from commit messages in prior runs, so only
+     * commits that haven't been seen before are read and parsed. Only applies to Git repositories and
+     * commit message parsers with a fingerprint. Defaults to no caching.
+     *
+     * @param scopeCache the cache to use or {@code null} to disable caching
+     * @return this builder
+     * @see CommitScopeCache#ofRepository(Repository)
+     * @see CommitMessageScopeParser#getFingerprint()
+     */
+    public Builder scopeCache(CommitScopeCache scopeCache) {
+      this.scopeCache = scopeCache;
+      return this;
+    }
+
+    /**
+     * Ignore tags on parallel branches whose commits are older than the nearest tagged commits in
+     * HEAD's history by more than the given window, and stop walking history once commits get that
+     * old. A parallel branch can't fork before the nearest tags, so this only misses parallel versions
+     * if commit times are skewed by more than the window. Only applies to Git repositories, and not
+     * in first-parent mode, where merged branches (and so how old the commits since the nearest tags
+     * are) aren't known. Defaults to no window, which always walks all relevant history.
+     *
+     * @param clockSkewWindow how much older than the nearest tags a parallel commit may appear, or
+     *        {@code null} to disable pruning
+     * @return this builder
+     */
+    public Builder clockSkewWindow(Duration clockSkewWindow) {
+      this.clockSkewWindow = clockSkewWindow;
+      return this;
+    }
+
+    /**
+     * Stop walking history for the base versions after the given number of commits, capping how long
+     * inference can take in repositories where the nearest tag is far back (or there's none at all).
+     * What happens then is decided by the policy, and the inventory reports that the limit was reached.
+     * Only applies to Git repositories. Defaults to no limit.
+     *
+     * @param maxWalkDepth the maximum number of commits to walk, at least 1
+     * @param walkLimitPolicy what to do if the limit is reached
+     * @return this builder
+     */
+    public Builder maxWalkDepth(int maxWalkDepth, WalkLimitPolicy walkLimitPolicy) {
+      if (maxWalkDepth < 1) {
+        throw new IllegalArgumentException("Max walk depth must be 1 or greater: " + maxWalkDepth);
+      }
+      this.maxWalkDepth = maxWalkDepth;
+      this.walkLimitPolicy = Objects.requireNonNull(walkLimitPolicy, "Must provide a walk limit policy.");
+      return this;
+    }
+
+    /**
+     * Limit how many commits the walk for the base versions holds in memory. Once over the limit, the
+     * commits walked so far are released, keeping only their IDs and what inference needs to know about
+     * them, and the walk continues from the parents it hasn't reached yet. This trades some speed for
+     * memory in very large histories. Only applies to Git repositories. Defaults to no limit.
+     *
+     * @param maxRetainedCommits the memory budget in commits, at least 1
+     * @return this builder
+     */
+    public Builder maxRetainedCommits(int maxRetainedCommits) {
+      if (maxRetainedCommits < 1) {
+        throw new IllegalArgumentException("Max retained commits must be 1 or greater: " + maxRetainedCommits);
+      }
+      this.maxRetainedCommits = maxRetainedCommits;
+      return this;
+    }
+
+    /**
+     * Only follow the first parent of merges when finding the base versions, counting commits since the
+     * base, and collecting their messages. This treats merged branches as a single change, as in
+     * repositories where everything reaches the main branch through merge commits, and avoids walking
+     * their commits. Tags only reachable through merged branches are ignored. Parallel versions still
+     * consider all history. Only applies to Git repositories. Defaults to following all parents.
+     *
+     * @param firstParent whether to only follow first parents
+     * @return this builder
+     */
+    public Builder firstParent(boolean firstParent) {
+      this.firstParent = firstParent;
+      return this;
+    }
+
+    /**
+     * Use the given executor to check whether the repository has uncommitted changes while its history
+     * is walked, so inference takes as long as the slower of the two instead of both. Only applies to
+     * Git repositories. Defaults to checking on the calling thread.
+     *
+     * @param statusExecutor the executor to check status with or {@code null} to use the calling thread
+     * @return this builder
+     */
+    public Builder statusExecutor(Executor statusExecutor) {
+      this.statusExecutor = statusExecutor;
+      return this;
+    }
+
+    /**
+     * Whether untracked files make the repository unclean, like {@code git status --untracked-files}.
+     * Turning this off skips scanning directories that aren't tracked at all, such as build output that
+     * isn't ignored. Only applies to Git repositories. Defaults to {@code true}.
+     *
+     * @param untrackedFiles whether to check for untracked files
+     * @return this builder
+     */
+    public Builder untrackedFiles(boolean untrackedFiles) {
+      this.untrackedFiles = untrackedFiles;
+      return this;
+    }
+
+    /**
+     * Which changes in submodules make the repository unclean, like {@code git status --ignore-submodules}.
+     * {@link IgnoreSubmoduleMode#ALL} skips opening submodules at all. Only applies to Git repositories.
+     * Defaults to each submodule's {@code ignore} setting in {@code .gitmodules}.
+     *
+     * @param ignoreSubmodules the submodule changes to ignore or {@code null} to use each submodule's
+     *        setting
+     * @return this builder
+     */
+    public Builder ignoreSubmodules(IgnoreSubmoduleMode ignoreSubmodules) {
+      this.ignoreSubmodules = ignoreSubmodules;
+      return this;
+    }
+
+    /**
+     * Only check the given paths for uncommitted changes, so that changes elsewhere, such as in other
+     * projects of a monorepo, don't make the repository unclean and the rest of the working tree isn't
+     * walked. Paths are relative to the root of the working tree and cover everything beneath them.
+     * Only applies to Git repositories. Defaults to checking the whole working tree.
+     *
+     * @param includes the paths to check or an empty collection to check everything
+     * @param excludes the paths not to check, even if beneath an included path
+     * @return this builder
+     */
+    public Builder statusPaths(Collection<String> includes, Collection<String> excludes) {
+      this.statusIncludes = Objects.requireNonNull(includes, "Includes cannot be null.");
+      this.statusExcludes = Objects.requireNonNull(excludes, "Excludes cannot be null.");
+      return this;
+    }
+
+    /**
+     * Use the given pool to check for uncommitted changes in parallel, splitting the index and working
+     * tree by top-level directory. Once changes are found in one part, the others stop being checked.
+     * Only applies to Git repositories. Defaults to checking on a single thread.
+     *
+     * @param statusPool the pool to check with or {@code null} to use a single thread
+     * @return this builder
+     */
+    public Builder statusPool(ForkJoinPool statusPool) {
+      this.statusPool = statusPool;
+      return this;
+    }
+
+    /**
+     * Use the given watcher to reuse the inventory from the last time the version was reckoned until
+     * HEAD or a ref changes, and whether the repository was clean until the working tree or index
+     * changes. Results are shared by every reckoner given the same watcher, as long as they're configured
+     * the same way. This is for long-lived processes that reckon the same repository's version repeatedly.
+     * Only applies to Git repositories. Defaults to no watcher.
+     *
+     * @param watcher the watcher of the repository or {@code null} to check the repository every time
+     * @return this builder
+     * @see RepositoryWatcher#of(Repository)
+     */
+    public Builder watcher(RepositoryWatcher watcher) {
+      this.watcher = watcher;
       return this;
     }
 
@@ -266,6 +474,26 @@ public final class Reckoner {
       return this;
     }
 
+    private GitInventorySupplier buildGitInventorySupplier() {
+      var statusCheck = GitStatusCheck.builder(repo)
+          .untrackedFiles(untrackedFiles)
+          .ignoreSubmodules(ignoreSubmodules)
+          .paths(statusIncludes, statusExcludes)
+          .pool(statusPool)
+          .build();
+      return GitInventorySupplier.builder(repo, tagParser)
+          .cache(inventoryCache)
+          .clockSkewWindow(clockSkewWindow)
+          .maxWalkDepth(maxWalkDepth, walkLimitPolicy)
+          .maxRetainedCommits(maxRetainedCommits)
+          .firstParent(firstParent)
+          .statusExecutor(statusExecutor)
+          .statusCheck(statusCheck)
+          .watcher(watcher)
+          .scopeCache(scopeCache)
+          .build();
+    }
+
     /**
      * Builds the reckoner.
      *
@@ -273,6 +501,7 @@ public final class Reckoner {
      */
     public Reckoner build() {
       var clock = Optional.ofNullable(this.clock).orElseGet(Clock::systemUTC);
+      var inventorySupplier = repo == null ? this.inventorySupplier : buildGitInventorySupplier();
       Objects.requireNonNull(inventorySupplier, "Must provide a vcs.");
       Objects.requireNonNull(scopeCalc, "Must provide a scope supplier.");
       Objects.requireNonNull(defaultInferredScope, "Must provide a default inferred scope");
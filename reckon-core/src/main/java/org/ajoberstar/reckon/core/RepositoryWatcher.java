@@ -0,0 +1,358 @@
+package org.ajoberstar.reckon.core;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches a Git repository for changes, so that a long-lived process can keep reusing what it found
+ * out about the repository until something changes. Inventories are reused until HEAD or any ref
+ * changes, and the working tree is only checked for uncommitted changes again once something in it
+ * or the index changes. Directories ignored by the repository's ignore rules, like build outputs, aren't
+ * watched.
+ * <p>
+ * Changes are only noticed once the platform's {@link WatchService} reports them. Where it's backed by
+ * the operating system, as on Linux and Windows, that takes milliseconds, so only changes made in the
+ * moments before the version is reckoned can be missed. Where it has to poll, as on macOS, changes
+ * can go unnoticed for seconds, so nothing is reused there. Nothing is reused either if any directory
+ * can't be watched, such as when the platform's limit on watches is reached. Close the watcher when done
+ * with it.
+ *
+ * @see Reckoner.Builder#watcher(RepositoryWatcher)
+ */
+public final class RepositoryWatcher implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(RepositoryWatcher.class);
+
+  private final Repository repo;
+  private final Path gitDir;
+  private final Path commonDir;
+  private final Path workTree;
+  private final Path refsDir;
+  private final Path indexFile;
+  private final Set<Path> refFiles;
+  private final WatchService service;
+  private final Map<WatchKey, Path> directories = new HashMap<>();
+
+  private long changes;
+  private long refChanges;
+  private Boolean clean;
+  private Object cleanSettings;
+  private WatchedInventory inventory;
+  private boolean watching = true;
+
+  private RepositoryWatcher(Repository repo) throws IOException {
+    this.repo = repo;
+    this.gitDir = repo.getDirectory().toPath();
+    // HEAD and the index belong to the worktree, but refs are shared by all of a repository's worktrees
+    this.commonDir = commonDir(gitDir);
+    this.workTree = repo.isBare() ? null : repo.getWorkTree().toPath();
+    this.refsDir = commonDir.resolve(Constants.R_REFS);
+    this.indexFile = repo.getIndexFile().toPath();
+    this.refFiles = Set.of(gitDir.resolve(Constants.HEAD), commonDir.resolve(Constants.PACKED_REFS));
+    this.service = gitDir.getFileSystem().newWatchService();
+
+    if (isPolling(service)) {
+      logger.info("Changes to files are only found by polling on this platform, which is too slow to rely on. Checking the repository every time.");
+      service.close();
+      watching = false;
+      return;
+    }
+
+    register(gitDir);
+    register(commonDir);
+    registerTree(refsDir);
+    if (workTree != null) {
+      registerWorkTree(workTree);
+    }
+  }
+
+  /**
+   * The directory shared by all of the repository's worktrees, which a linked worktree's Git directory
+   * points to in its {@code commondir} file, as JGit doesn't know about it.
+   */
+  private static Path commonDir(Path gitDir) throws IOException {
+    try {
+      var commonDir = Files.readString(gitDir.resolve("commondir")).trim();
+      return gitDir.resolve(commonDir).normalize();
+    } catch (NoSuchFileException e) {
+      return gitDir;
+    }
+  }
+
+  /**
+   * Whether the service finds changes by polling, rather than being told by the operating system.
+   */
+  private static boolean isPolling(WatchService service) {
+    return service.getClass().getName().equals("sun.nio.fs.PollingWatchService");
+  }
+
+  /**
+   * Starts watching the given repository.
+   *
+   * @param repo the repository to watch
+   * @return a watcher of the repository
+   */
+  public static RepositoryWatcher of(Repository repo) {
+    try {
+      return new RepositoryWatcher(repo);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Whether the repository is clean, using the given check only if something changed since it last
+   * ran.
+   */
+  boolean isClean(BooleanSupplier check) {
+    return isClean(null, check);
+  }
+
+  /**
+   * Whether the repository is clean, using the given check only if something changed since it last
+   * ran, or it last ran with different settings.
+   */
+  boolean isClean(Object settings, BooleanSupplier check) {
+    long seen;
+    synchronized (this) {
+      drain();
+      if (clean != null && Objects.equals(settings, cleanSettings)) {
+        return clean;
+      }
+      seen = changes;
+    }
+
+    var result = check.getAsBoolean();
+
+    synchronized (this) {
+      drain();
+      // anything that changed during the check may not have been seen by it
+      if (watching && changes == seen) {
+        clean = result;
+        cleanSettings = settings;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * The inventory last found with the given settings, if HEAD and the refs haven't changed since.
+   */
+  synchronized Optional<VcsInventory> getInventory(Object settings, long refChanges) {
+    if (inventory != null && inventory.getRefChanges() == refChanges && inventory.getSettings().equals(settings)) {
+      return Optional.of(inventory.getInventory());
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Keeps the inventory found with the given settings, for as long as HEAD and the refs don't change.
+   */
+  synchronized void putInventory(Object settings, long refChanges, VcsInventory inventory) {
+    this.inventory = new WatchedInventory(settings, refChanges, inventory);
+  }
+
+  /**
+   * How many times HEAD or the refs have changed, or empty if changes can't be tracked.
+   */
+  synchronized OptionalLong getRefChanges() {
+    drain();
+    return watching ? OptionalLong.of(refChanges) : OptionalLong.empty();
+  }
+
+  private void drain() {
+    if (!watching) {
+      // nothing will be reused, so there's no need to keep track
+      return;
+    }
+
+    WatchKey key;
+    while ((key = service.poll()) != null) {
+      var dir = directories.get(key);
+      for (var event : key.pollEvents()) {
+        if (event.kind() == OVERFLOW || dir == null) {
+          changed(true);
+          continue;
+        }
+
+        var path = dir.resolve((Path) event.context());
+        if (dir.equals(gitDir) || dir.equals(commonDir)) {
+          // everything else directly in the Git directory is irrelevant
+          if (refFiles.contains(path)) {
+            changed(true);
+          } else if (path.equals(indexFile)) {
+            changed(false);
+          }
+        } else if (path.startsWith(refsDir)) {
+          changed(true);
+          if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+            registerTree(path);
+          }
+        } else if (!path.equals(gitDir) && !path.equals(commonDir)) {
+          changed(false);
+          if (path.getFileName().toString().equals(Constants.DOT_GIT_IGNORE)) {
+            // directories that were ignored may not be anymore
+            registerWorkTree(workTree);
+          } else if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+            registerWorkTree(path);
+          }
+        }
+      }
+      if (!key.reset()) {
+        directories.remove(key);
+      }
+    }
+  }
+
+  private void changed(boolean refs) {
+    changes++;
+    clean = null;
+    if (refs) {
+      refChanges++;
+    }
+  }
+
+  /**
+   * Watches the directory and everything beneath it.
+   */
+  private void registerTree(Path root) {
+    try {
+      Files.walkFileTree(root, new SimpleFileVisitor<>() {
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+          register(dir);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+          if (e instanceof NoSuchFileException) {
+            // deleted since it was listed, which was already seen as a change
+            return FileVisitResult.CONTINUE;
+          }
+          throw e;
+        }
+      });
+    } catch (NoSuchFileException e) {
+      // deleted since it was created, which was already seen as a change
+    } catch (IOException e) {
+      stopWatching(root, e);
+    }
+  }
+
+  /**
+   * Watches the directory in the working tree and those beneath it, other than those that are ignored.
+   * Submodules are watched in full.
+   */
+  private void registerWorkTree(Path root) {
+    try (var walk = new TreeWalk(repo)) {
+      walk.addTree(new FileTreeIterator(repo));
+      if (root.equals(workTree)) {
+        register(workTree);
+      } else {
+        // only walks the directories leading to the root, and then everything beneath it
+        walk.setFilter(PathFilter.create(workTree.relativize(root).toString().replace(root.getFileSystem().getSeparator(), "/")));
+      }
+
+      while (walk.next()) {
+        var path = workTree.resolve(walk.getPathString());
+        if (FileMode.GITLINK.equals(walk.getFileMode(0))) {
+          if (path.startsWith(root)) {
+            registerTree(path);
+          }
+        } else if (walk.isSubtree() && !walk.getTree(0, WorkingTreeIterator.class).isEntryIgnored()) {
+          if (path.startsWith(root)) {
+            register(path);
+          }
+          walk.enterSubtree();
+        }
+      }
+    } catch (NoSuchFileException e) {
+      // deleted since it was created, which was already seen as a change
+    } catch (IOException e) {
+      stopWatching(root, e);
+    }
+  }
+
+  private void register(Path dir) {
+    try {
+      directories.put(dir.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+    } catch (NoSuchFileException e) {
+      // deleted since it was listed, which was already seen as a change
+    } catch (IOException e) {
+      stopWatching(dir, e);
+    }
+  }
+
+  private void stopWatching(Path dir, IOException e) {
+    if (watching) {
+      logger.warn("Failed to watch {} for changes. Falling back to checking the repository every time.", dir, e);
+      watching = false;
+      clean = null;
+      inventory = null;
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      service.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static class WatchedInventory {
+    private final Object settings;
+    private final long refChanges;
+    private final VcsInventory inventory;
+
+    public WatchedInventory(Object settings, long refChanges, VcsInventory inventory) {
+      this.settings = settings;
+      this.refChanges = refChanges;
+      this.inventory = inventory;
+    }
+
+    public Object getSettings() {
+      return settings;
+    }
+
+    public long getRefChanges() {
+      return refChanges;
+    }
+
+    public VcsInventory getInventory() {
+      return inventory;
+    }
+  }
+}
@@ -1,6 +1,5 @@
 package org.ajoberstar.reckon.core;
 
-import java.util.Comparator;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -30,6 +29,9 @@ public interface ScopeCalculator {
   /**
    * Creates a scope calculator that uses the given parser to parse the inventory's commit messages
    * for the presence os scope indicators. If any are found, the most significant scope is returned.
+   * Messages are read as they're parsed, stopping once MAJOR is found, as nothing can outrank it. If
+   * the parser has a fingerprint and the inventory's repository has a {@link CommitScopeCache}, only
+   * commits the cache hasn't seen are read and parsed.
    *
    * @param parser the chosen way to read scopes from commit messages
    * @return a legit scope calculator
@@ -37,9 +39,7 @@ public interface ScopeCalculator {
   static ScopeCalculator ofCommitMessageParser(CommitMessageScopeParser parser) {
     return inventory -> {
       var preV1 = inventory.getBaseNormal().compareTo(Version.valueOf("1.0.0")) < 0;
-      return inventory.getCommitMessages().stream()
-          .flatMap(msg -> parser.parse(msg, preV1).stream())
-          .max(Comparator.naturalOrder());
+      return inventory.findCommitMessageScope(parser, preV1);
     };
   }
 
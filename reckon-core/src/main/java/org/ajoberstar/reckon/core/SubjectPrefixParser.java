@@ -0,0 +1,153 @@
+package org.ajoberstar.reckon.core;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.eclipse.jgit.util.RawParseUtils;
+
+/**
+ * Reads scopes from subject prefixes like {@code <scope>(<area>): subject}, as described in
+ * {@link CommitMessageScopeParser#subjectPrefix()}.
+ * <p>
+ * Raw commits are matched byte by byte, so most messages are never decoded. Decoding can only change
+ * what bytes outside of ASCII mean, so a message is only decoded and matched against the pattern if
+ * the bytes that decide the match aren't all ASCII, or the commit isn't encoded in UTF-8.
+ * <p>
+ * This is intentionally package private.
+ */
+final class SubjectPrefixParser implements CommitMessageScopeParser {
+  private static final Pattern PATTERN = Pattern.compile("^(major!|major|minor|patch)(?:\\(.*?\\))?: .+");
+
+  private static final byte[] MAJOR_FORCED = {'m', 'a', 'j', 'o', 'r', '!'};
+  private static final byte[] MAJOR = {'m', 'a', 'j', 'o', 'r'};
+  private static final byte[] MINOR = {'m', 'i', 'n', 'o', 'r'};
+  private static final byte[] PATCH = {'p', 'a', 't', 'c', 'h'};
+
+  private static final int NO_MATCH = 0;
+  private static final int MATCH = 1;
+  private static final int UNDECIDED = 2;
+
+  // bump this whenever the scope read from a message changes
+  private static final String FINGERPRINT = "subjectPrefix:1";
+
+  @Override
+  public Optional<String> getFingerprint() {
+    return Optional.of(FINGERPRINT);
+  }
+
+  @Override
+  public Optional<Scope> parse(String messageBody, boolean preV1) {
+    var matcher = PATTERN.matcher(messageBody);
+
+    if (!matcher.find()) {
+      return Optional.empty();
+    }
+
+    switch (matcher.group(1)) {
+      // the ! forces use of major, ignoring preV1 checks
+      case "major!":
+        return Optional.of(Scope.MAJOR);
+      // otherwise we don't allow pre-v1 to bump to major
+      case "major":
+        return Optional.of(preV1 ? Scope.MINOR : Scope.MAJOR);
+      case "minor":
+        return Optional.of(Scope.MINOR);
+      case "patch":
+        return Optional.of(Scope.PATCH);
+      default:
+        throw new AssertionError("Unhandled scope value matched by regex: " + matcher.group(1));
+    }
+  }
+
+  @Override
+  public Optional<Scope> parseRawCommit(byte[] rawCommit, boolean preV1) {
+    var start = RawParseUtils.commitMessage(rawCommit, 0);
+    if (start < 0) {
+      return Optional.empty();
+    }
+    if (!UTF_8.equals(RawParseUtils.guessEncoding(rawCommit))) {
+      return parse(CommitMessage.decode(rawCommit), preV1);
+    }
+
+    Scope scope;
+    int ptr;
+    // like the pattern, prefer major! over major
+    if (startsWith(rawCommit, start, MAJOR_FORCED)) {
+      scope = Scope.MAJOR;
+      ptr = start + MAJOR_FORCED.length;
+    } else if (startsWith(rawCommit, start, MAJOR)) {
+      scope = preV1 ? Scope.MINOR : Scope.MAJOR;
+      ptr = start + MAJOR.length;
+    } else if (startsWith(rawCommit, start, MINOR)) {
+      scope = Scope.MINOR;
+      ptr = start + MINOR.length;
+    } else if (startsWith(rawCommit, start, PATCH)) {
+      scope = Scope.PATCH;
+      ptr = start + PATCH.length;
+    } else {
+      return Optional.empty();
+    }
+
+    switch (matchArea(rawCommit, ptr)) {
+      case MATCH:
+        return Optional.of(scope);
+      case NO_MATCH:
+        return Optional.empty();
+      default:
+        return parse(CommitMessage.decode(rawCommit), preV1);
+    }
+  }
+
+  private static boolean startsWith(byte[] buffer, int ptr, byte[] prefix) {
+    if (buffer.length - ptr < prefix.length) {
+      return false;
+    }
+    for (var i = 0; i < prefix.length; i++) {
+      if (buffer[ptr + i] != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Matches the optional {@code (<area>)} after the scope, which can't span lines, and then the rest
+   * of the subject. Any closing parenthesis on the line may end the area.
+   */
+  private static int matchArea(byte[] buffer, int ptr) {
+    if (ptr >= buffer.length || buffer[ptr] != '(') {
+      return matchSubject(buffer, ptr);
+    }
+    for (var i = ptr + 1; i < buffer.length; i++) {
+      var b = buffer[i];
+      if (b == '\n' || b == '\r') {
+        return NO_MATCH;
+      } else if (b < 0) {
+        // not ASCII, so it may be a line terminator once decoded
+        return UNDECIDED;
+      } else if (b == ')') {
+        var result = matchSubject(buffer, i + 1);
+        if (result != NO_MATCH) {
+          return result;
+        }
+      }
+    }
+    return NO_MATCH;
+  }
+
+  /**
+   * Matches {@code ": "} followed by at least one character on the same line.
+   */
+  private static int matchSubject(byte[] buffer, int ptr) {
+    if (buffer.length - ptr < 3 || buffer[ptr] != ':' || buffer[ptr + 1] != ' ') {
+      return NO_MATCH;
+    }
+    var b = buffer[ptr + 2];
+    if (b == '\n' || b == '\r') {
+      return NO_MATCH;
+    }
+    return b < 0 ? UNDECIDED : MATCH;
+  }
+}
@@ -4,6 +4,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -20,9 +23,11 @@ public final class VcsInventory {
   private final int commitsSinceBase;
   private final Version baseVersion;
   private final Version baseNormal;
-  private final Set<Version> parallelNormals;
-  private final Set<Version> claimedVersions;
-  private final List<String> commitMessages;
+  private final Memoized<Set<Version>> parallelNormals;
+  private final Memoized<Set<Version>> claimedVersions;
+  private final CommitMessageSource commitMessageSource;
+  private final Memoized<List<String>> commitMessages;
+  private final boolean walkLimitReached;
 
   /**
    * This is intentionally package private.
@@ -37,6 +42,44 @@ public final class VcsInventory {
       Set<Version> parallelNormals,
       Set<Version> claimedVersions,
       List<String> commitMessages) {
+    this(commitId, clean, currentVersion, baseVersion, baseNormal, commitsSinceBase, parallelNormals, claimedVersions, commitMessages, false);
+  }
+
+  /**
+   * This is intentionally package private.
+   */
+  VcsInventory(
+      String commitId,
+      boolean clean,
+      Version currentVersion,
+      Version baseVersion,
+      Version baseNormal,
+      int commitsSinceBase,
+      Set<Version> parallelNormals,
+      Set<Version> claimedVersions,
+      List<String> commitMessages,
+      boolean walkLimitReached) {
+    this(commitId, clean, currentVersion, baseVersion, baseNormal, commitsSinceBase, calculated(parallelNormals), calculated(claimedVersions), () -> Optional.ofNullable(commitMessages).stream().flatMap(List::stream).map(CommitMessage::ofText), walkLimitReached);
+  }
+
+  /**
+   * Creates an inventory whose parallel normals, claimed versions, and commit messages are only
+   * calculated the first time they're asked for, as not every build needs them. Commit messages are
+   * read from a fresh stream each time they're streamed, until the full list is asked for.
+   * <p>
+   * This is intentionally package private.
+   */
+  VcsInventory(
+      String commitId,
+      boolean clean,
+      Version currentVersion,
+      Version baseVersion,
+      Version baseNormal,
+      int commitsSinceBase,
+      Supplier<Set<Version>> parallelNormals,
+      Supplier<Set<Version>> claimedVersions,
+      CommitMessageSource commitMessages,
+      boolean walkLimitReached) {
     if (commitsSinceBase < 0) {
       throw new IllegalArgumentException("Commits since base must be 0 or greater: " + commitsSinceBase);
     }
@@ -47,15 +90,15 @@ public final class VcsInventory {
     this.baseVersion = Optional.ofNullable(baseVersion).orElse(Version.IDENTITY);
     this.baseNormal = Optional.ofNullable(baseNormal).orElse(Version.IDENTITY);
     this.commitsSinceBase = commitsSinceBase;
-    this.parallelNormals = Optional.ofNullable(parallelNormals)
-        .map(Collections::unmodifiableSet)
-        .orElse(Collections.emptySet());
-    this.claimedVersions = Optional.ofNullable(claimedVersions)
-        .map(Collections::unmodifiableSet)
-        .orElse(Collections.emptySet());
-    this.commitMessages = Optional.ofNullable(commitMessages)
-        .map(Collections::unmodifiableList)
-        .orElse(Collections.emptyList());
+    this.parallelNormals = memoizeVersions(parallelNormals);
+    this.claimedVersions = memoizeVersions(claimedVersions);
+    this.commitMessageSource = commitMessages;
+    this.commitMessages = new Memoized<>(() -> {
+      try (var messages = commitMessages.stream()) {
+        return messages.map(CommitMessage::getText).collect(Collectors.toUnmodifiableList());
+      }
+    });
+    this.walkLimitReached = walkLimitReached;
   }
 
   /**
@@ -102,42 +145,210 @@ public final class VcsInventory {
   }
 
   /**
-   * Any normal versions under development in other branches.
+   * Normal versions under development in other branches that inference could target. Only includes
+   * versions that are one MAJOR, MINOR, or PATCH increment from the base normal.
+   * <p>
+   * Earlier versions of reckon returned every normal version under development in other branches.
+   * Versions further away are still in {@link #getClaimedVersions()} if they were tagged.
    */
   public Set<Version> getParallelNormals() {
-    return parallelNormals;
+    return parallelNormals.get();
+  }
+
+  /**
+   * The parallel normals, if they were already calculated.
+   * <p>
+   * This is intentionally package private.
+   */
+  Optional<Set<Version>> getCalculatedParallelNormals() {
+    return parallelNormals.isCalculated() ? Optional.of(parallelNormals.get()) : Optional.empty();
   }
 
   /**
    * Any versions that have already been released or otherwise claimed.
    */
   public Set<Version> getClaimedVersions() {
-    return claimedVersions;
+    return claimedVersions.get();
+  }
+
+  /**
+   * The claimed versions, if they were already calculated.
+   * <p>
+   * This is intentionally package private.
+   */
+  Optional<Set<Version>> getCalculatedClaimedVersions() {
+    return claimedVersions.isCalculated() ? Optional.of(claimedVersions.get()) : Optional.empty();
   }
 
   /**
    * All commit messages between the current HEAD commit and the base version's commit.
    */
   public List<String> getCommitMessages() {
-    return commitMessages;
+    return commitMessages.get();
   }
 
+  /**
+   * Streams the same commit messages as {@link #getCommitMessages()}, reading each only as it's
+   * consumed if they haven't all been read yet. Stopping early, such as with
+   * {@link Stream#anyMatch(java.util.function.Predicate)}, skips reading the rest. Close the stream
+   * when done with it.
+   */
+  public Stream<String> streamCommitMessages() {
+    return streamRawCommitMessages().map(CommitMessage::getText);
+  }
+
+  /**
+   * Streams the commit messages, leaving any still in their raw commits to be decoded only if
+   * needed.
+   * <p>
+   * This is intentionally package private.
+   */
+  Stream<CommitMessage> streamRawCommitMessages() {
+    if (commitMessages.isCalculated()) {
+      return commitMessages.get().stream().map(CommitMessage::ofText);
+    }
+    return commitMessageSource.stream();
+  }
+
+  /**
+   * Finds the most significant scope the parser reads from any of the commit messages.
+   * <p>
+   * This is intentionally package private.
+   */
+  Optional<Scope> findCommitMessageScope(CommitMessageScopeParser parser, boolean preV1) {
+    return commitMessageSource.findScope(parser, preV1);
+  }
+
+  /**
+   * This is intentionally package private.
+   */
+  CommitMessageSource getCommitMessageSource() {
+    return commitMessageSource;
+  }
+
+  /**
+   * Whether the walk of history stopped at the maximum depth before finding everything. If so, the
+   * base versions and commits since the base may only reflect the history that was walked.
+   */
+  public boolean isWalkLimitReached() {
+    return walkLimitReached;
+  }
+
+  // the lazy facets have to be compared by value, not by how they're calculated
   @Override
   public boolean equals(Object other) {
-    return EqualsBuilder.reflectionEquals(this, other);
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof VcsInventory)) {
+      return false;
+    }
+    var that = (VcsInventory) other;
+    return new EqualsBuilder()
+        .append(commitId, that.commitId)
+        .append(clean, that.clean)
+        .append(currentVersion, that.currentVersion)
+        .append(commitsSinceBase, that.commitsSinceBase)
+        .append(baseVersion, that.baseVersion)
+        .append(baseNormal, that.baseNormal)
+        .append(getParallelNormals(), that.getParallelNormals())
+        .append(getClaimedVersions(), that.getClaimedVersions())
+        .append(getCommitMessages(), that.getCommitMessages())
+        .append(walkLimitReached, that.walkLimitReached)
+        .isEquals();
   }
 
   @Override
   public int hashCode() {
-    return HashCodeBuilder.reflectionHashCode(this);
+    return new HashCodeBuilder()
+        .append(commitId)
+        .append(clean)
+        .append(currentVersion)
+        .append(commitsSinceBase)
+        .append(baseVersion)
+        .append(baseNormal)
+        .append(getParallelNormals())
+        .append(getClaimedVersions())
+        .append(getCommitMessages())
+        .append(walkLimitReached)
+        .toHashCode();
   }
 
   @Override
   public String toString() {
-    return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+        .append("commitId", commitId)
+        .append("clean", clean)
+        .append("currentVersion", currentVersion)
+        .append("commitsSinceBase", commitsSinceBase)
+        .append("baseVersion", baseVersion)
+        .append("baseNormal", baseNormal)
+        .append("parallelNormals", getParallelNormals())
+        .append("claimedVersions", getClaimedVersions())
+        .append("commitMessages", getCommitMessages())
+        .append("walkLimitReached", walkLimitReached)
+        .toString();
   }
 
   public static VcsInventory empty(boolean clean) {
     return new VcsInventory(null, clean, null, null, null, 0, Collections.emptySet(), Collections.emptySet(), Collections.emptyList());
   }
+
+  /**
+   * Supplies versions that are already known, so the inventory counts them as calculated.
+   * <p>
+   * This is intentionally package private.
+   */
+  static Supplier<Set<Version>> calculated(Set<Version> versions) {
+    return new Calculated(versions);
+  }
+
+  private static Memoized<Set<Version>> memoizeVersions(Supplier<Set<Version>> versions) {
+    var memoized = new Memoized<Set<Version>>(() -> Optional.ofNullable(versions.get())
+        .map(Collections::unmodifiableSet)
+        .orElse(Collections.emptySet()));
+    if (versions instanceof Calculated) {
+      memoized.get();
+    }
+    return memoized;
+  }
+
+  private static final class Calculated implements Supplier<Set<Version>> {
+    private final Set<Version> versions;
+
+    public Calculated(Set<Version> versions) {
+      this.versions = versions;
+    }
+
+    @Override
+    public Set<Version> get() {
+      return versions;
+    }
+  }
+
+  /**
+   * Calculates a value the first time it's asked for, then remembers it.
+   */
+  private static final class Memoized<T> implements Supplier<T> {
+    private Supplier<T> supplier;
+    private T value;
+
+    public Memoized(Supplier<T> supplier) {
+      this.supplier = supplier;
+    }
+
+    public synchronized boolean isCalculated() {
+      return supplier == null;
+    }
+
+    @Override
+    public synchronized T get() {
+      if (supplier != null) {
+        value = supplier.get();
+        // let go of whatever the calculation needed
+        supplier = null;
+      }
+      return value;
+    }
+  }
 }
@@ -0,0 +1,53 @@
+package org.ajoberstar.reckon.core;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * A store of previously calculated inventories, allowing a repository that hasn't changed to skip
+ * re-walking its history. Keys are opaque fingerprints of the repository's state calculated by
+ * reckon.
+ * <p>
+ * Whether the repository is clean is never trusted from the cache, as uncommitted changes can occur
+ * without modifying anything reckon fingerprints.
+ */
+public interface VcsInventoryCache {
+  /**
+   * Loads the inventory stored under the given key, if any.
+   *
+   * @param key fingerprint of the repository state
+   * @return the stored inventory or an empty optional, if none was stored
+   */
+  Optional<VcsInventory> load(String key);
+
+  /**
+   * Stores the inventory under the given key, replacing any existing inventory for that key.
+   *
+   * @param key fingerprint of the repository state
+   * @param inventory the inventory to store
+   */
+  void store(String key, VcsInventory inventory);
+
+  /**
+   * Creates a cache that stores inventories as files in the given directory.
+   *
+   * @param directory the directory to store inventories in
+   * @return a file-backed cache
+   */
+  static VcsInventoryCache ofDirectory(Path directory) {
+    return new FileVcsInventoryCache(directory);
+  }
+
+  /**
+   * Creates a cache that stores inventories as files in the {@code reckon} directory of the given
+   * repository's Git directory (i.e. {@code .git/reckon}).
+   *
+   * @param repo the repository whose Git directory should hold the cache
+   * @return a file-backed cache
+   */
+  static VcsInventoryCache ofRepository(Repository repo) {
+    return ofDirectory(repo.getDirectory().toPath().resolve("reckon"));
+  }
+}
@@ -6,7 +6,31 @@ import java.util.Optional;
 public interface VersionTagParser {
   Optional<Version> parse(String tagName);
 
+  /**
+   * Identifies how this parser reads tag names, so inventories found with it can be cached. Two
+   * parsers may only share a fingerprint if they always read the same version from the same tag name.
+   * Change the fingerprint whenever that changes. By default, parsers have no fingerprint and their
+   * inventories are never cached.
+   *
+   * @return the fingerprint of this parser, if its inventories can be cached
+   * @see VcsInventoryCache
+   */
+  default Optional<String> getFingerprint() {
+    return Optional.empty();
+  }
+
   static VersionTagParser getDefault() {
-    return tagName -> Version.parse(tagName.replaceAll("^v", ""));
+    return new VersionTagParser() {
+      @Override
+      public Optional<Version> parse(String tagName) {
+        return Version.parse(tagName.replaceAll("^v", ""));
+      }
+
+      // bump this whenever the version read from a tag name changes
+      @Override
+      public Optional<String> getFingerprint() {
+        return Optional.of("default:1");
+      }
+    };
   }
 }
@@ -0,0 +1,26 @@
+package org.ajoberstar.reckon.core;
+
+/**
+ * What to do when the walk of HEAD's history for its base versions reaches the maximum depth without
+ * finishing.
+ *
+ * @see Reckoner.Builder#maxWalkDepth(int, WalkLimitPolicy)
+ */
+public enum WalkLimitPolicy {
+  /**
+   * Treat any history beyond the limit as untagged. If no normal version was found within the limit,
+   * the base normal is 0.0.0.
+   */
+  NO_BASE,
+
+  /**
+   * Fail inference, so the limit is never silently relied on.
+   */
+  FAIL,
+
+  /**
+   * Use the base versions of the most recent cached inventory for the current branch, if any. Otherwise
+   * behaves like {@link #NO_BASE}. Only useful with an inventory cache.
+   */
+  CACHED_BASE;
+}
@@ -0,0 +1,68 @@
+package org.ajoberstar.reckon.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CommitMessageScopeParserTest {
+  @Test
+  @DisplayName("subject prefixes read from raw commits match those read from decoded messages")
+  public void subjectPrefixRawMatchesDecoded() throws UnsupportedEncodingException {
+    var parser = CommitMessageScopeParser.subjectPrefix();
+    var prefixes = List.of("major!", "major", "minor", "patch", "Major", "chore", "majo", "");
+    var areas = List.of("", "(core)", "(a)b)", "()", "(", "(\u00e4)", "(a\u2028b)", "(a\nb)", "(a): \n(b)");
+    var subjects = List.of(": fix", ":fix", ": ", ":", ": \n", ": \r\nmore", ": \u00fc", ": \u0085", ": \u2028", ":  ", "!: fix", " : fix", "");
+    var bodies = List.of("", "\n\nbody", "\n\nmajor: body");
+
+    var messages = new ArrayList<String>();
+    for (var prefix : prefixes) {
+      for (var area : areas) {
+        for (var subject : subjects) {
+          for (var body : bodies) {
+            messages.add(prefix + area + subject + body);
+          }
+        }
+      }
+    }
+
+    for (var message : messages) {
+      for (var preV1 : List.of(true, false)) {
+        var expected = parser.parse(message, preV1);
+        assertEquals(expected, parser.parseRawCommit(rawCommit(message, StandardCharsets.UTF_8), preV1), message);
+        if (StandardCharsets.ISO_8859_1.newEncoder().canEncode(message)) {
+          assertEquals(expected, parser.parseRawCommit(rawCommit(message, StandardCharsets.ISO_8859_1), preV1), message);
+        }
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("parsers that only read decoded messages can parse raw commits")
+  public void customParsersDecodeRawCommits() throws UnsupportedEncodingException {
+    CommitMessageScopeParser parser = (msg, preV1) -> msg.equals("Gr\u00f6\u00dfer\n\nbody") ? Optional.of(Scope.MINOR) : Optional.empty();
+    assertEquals(Optional.of(Scope.MINOR), parser.parseRawCommit(rawCommit("Gr\u00f6\u00dfer\n\nbody", StandardCharsets.UTF_8), false));
+    assertEquals(Optional.of(Scope.MINOR), parser.parseRawCommit(rawCommit("Gr\u00f6\u00dfer\n\nbody", StandardCharsets.ISO_8859_1), false));
+  }
+
+  private byte[] rawCommit(String message, Charset encoding) throws UnsupportedEncodingException {
+    var person = new PersonIdent("Test", "test@example.com");
+    var commit = new CommitBuilder();
+    commit.setTreeId(ObjectId.zeroId());
+    commit.setAuthor(person);
+    commit.setCommitter(person);
+    commit.setEncoding(encoding);
+    commit.setMessage(message);
+    return commit.build();
+  }
+}
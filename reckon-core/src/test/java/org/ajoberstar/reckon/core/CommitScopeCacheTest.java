@@ -0,0 +1,174 @@
+package org.ajoberstar.reckon.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CommitScopeCacheTest {
+  @Test
+  @DisplayName("only commits without a cached scope are parsed")
+  public void onlyMissesParsed(@TempDir Path repoDir) throws IOException, GitAPIException {
+    try (var git = TestRepositories.init(repoDir)) {
+      git.commit().setMessage("first").setAllowEmpty(true).call();
+      git.tag().setName("1.0.0").call();
+      git.commit().setMessage("patch: fix").setAllowEmpty(true).call();
+      git.commit().setMessage("minor: feature").setAllowEmpty(true).call();
+      git.commit().setMessage("other").setAllowEmpty(true).call();
+
+      var parsed = new AtomicInteger();
+      var calc = ScopeCalculator.ofCommitMessageParser(countingParser(parsed));
+      var scopeCache = CommitScopeCache.ofRepository(git.getRepository());
+
+      assertEquals(Optional.of(Scope.MINOR), calc.calculate(inventory(git, scopeCache)));
+      assertEquals(3, parsed.get());
+      assertEquals(Optional.of(Scope.MINOR), calc.calculate(inventory(git, scopeCache)));
+      assertEquals(3, parsed.get());
+
+      git.commit().setMessage("major: breaking").setAllowEmpty(true).call();
+      assertEquals(Optional.of(Scope.MAJOR), calc.calculate(inventory(git, scopeCache)));
+      assertEquals(4, parsed.get());
+
+      // parsers without a fingerprint are never cached
+      var uncached = new AtomicInteger();
+      var uncachedCalc = ScopeCalculator.ofCommitMessageParser((messageBody, preV1) -> {
+        uncached.incrementAndGet();
+        return Optional.empty();
+      });
+      assertEquals(Optional.empty(), uncachedCalc.calculate(inventory(git, scopeCache)));
+      assertEquals(Optional.empty(), uncachedCalc.calculate(inventory(git, scopeCache)));
+      assertEquals(8, uncached.get());
+    }
+  }
+
+  @Test
+  @DisplayName("scopes of other branches stay cached")
+  public void otherBranchesStayCached(@TempDir Path repoDir) throws IOException, GitAPIException {
+    try (var git = TestRepositories.init(repoDir)) {
+      git.commit().setMessage("first").setAllowEmpty(true).call();
+      git.tag().setName("1.0.0").call();
+      var mainBranch = git.getRepository().getBranch();
+      git.checkout().setName("feature").setCreateBranch(true).call();
+      git.commit().setMessage("minor: feature").setAllowEmpty(true).call();
+      git.checkout().setName(mainBranch).call();
+      git.commit().setMessage("patch: fix").setAllowEmpty(true).call();
+
+      var parsed = new AtomicInteger();
+      var calc = ScopeCalculator.ofCommitMessageParser(countingParser(parsed));
+      var scopeCache = CommitScopeCache.ofRepository(git.getRepository());
+
+      assertEquals(Optional.of(Scope.PATCH), calc.calculate(inventory(git, scopeCache)));
+      git.checkout().setName("feature").call();
+      assertEquals(Optional.of(Scope.MINOR), calc.calculate(inventory(git, scopeCache)));
+      assertEquals(2, parsed.get());
+
+      git.checkout().setName(mainBranch).call();
+      assertEquals(Optional.of(Scope.PATCH), calc.calculate(inventory(git, scopeCache)));
+      git.checkout().setName("feature").call();
+      assertEquals(Optional.of(Scope.MINOR), calc.calculate(inventory(git, scopeCache)));
+      assertEquals(2, parsed.get());
+    }
+  }
+
+  @Test
+  @DisplayName("file cache merges stored scopes and drops those stored longest ago")
+  public void fileMergesAndPrunes(@TempDir Path cacheDir) {
+    var cache = new FileCommitScopeCache(cacheDir, 2);
+    var first = ObjectId.fromString("0123456789012345678901234567890123456789");
+    var second = ObjectId.fromString("9876543210987654321098765432109876543210");
+    var third = ObjectId.fromString("0000000000111111111122222222223333333333");
+
+    cache.store("key", Map.of(first, Optional.of(Scope.MINOR)));
+    cache.store("key", Map.of(second, Optional.<Scope>empty()));
+    assertEquals(Map.of(first, Optional.of(Scope.MINOR), second, Optional.<Scope>empty()), cache.load("key"));
+
+    // storing again keeps the first from being dropped
+    cache.store("key", Map.of(first, Optional.of(Scope.MINOR)));
+    cache.store("key", Map.of(third, Optional.of(Scope.MAJOR)));
+    assertEquals(Map.of(first, Optional.of(Scope.MINOR), third, Optional.of(Scope.MAJOR)), cache.load("key"));
+  }
+
+  @Test
+  @DisplayName("file cache never drops the scopes being stored")
+  public void fileKeepsStoredScopes(@TempDir Path cacheDir) {
+    var cache = new FileCommitScopeCache(cacheDir, 2);
+    var scopes = new HashMap<ObjectId, Optional<Scope>>();
+    for (var i = 0; i < 5; i++) {
+      scopes.put(ObjectId.fromRaw(new int[] {i, 0, 0, 0, 0}), Optional.of(Scope.PATCH));
+    }
+
+    cache.store("key", scopes);
+    assertEquals(scopes, cache.load("key"));
+    cache.store("key", scopes);
+    assertEquals(scopes, cache.load("key"));
+  }
+
+  @Test
+  @DisplayName("file cache keeps the scopes of concurrent stores")
+  public void fileConcurrentStores(@TempDir Path cacheDir) throws InterruptedException, ExecutionException {
+    var executor = Executors.newFixedThreadPool(4);
+    try {
+      var expected = new HashMap<ObjectId, Optional<Scope>>();
+      var stores = new ArrayList<Future<?>>();
+      for (var i = 0; i < 20; i++) {
+        var id = ObjectId.fromRaw(new int[] {i, 0, 0, 0, 0});
+        expected.put(id, Optional.of(Scope.MINOR));
+        stores.add(executor.submit(() -> new FileCommitScopeCache(cacheDir).store("key", Map.of(id, Optional.of(Scope.MINOR)))));
+      }
+      for (var store : stores) {
+        store.get();
+      }
+      assertEquals(expected, CommitScopeCache.ofDirectory(cacheDir).load("key"));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  @DisplayName("file cache round trips scopes")
+  public void fileRoundTrip(@TempDir Path cacheDir) throws IOException {
+    var cache = CommitScopeCache.ofDirectory(cacheDir);
+    var scopes = Map.of(
+        ObjectId.fromString("0123456789012345678901234567890123456789"), Optional.of(Scope.MINOR),
+        ObjectId.fromString("9876543210987654321098765432109876543210"), Optional.<Scope>empty());
+
+    assertEquals(Map.of(), cache.load("key"));
+    cache.store("key", scopes);
+    assertEquals(scopes, cache.load("key"));
+    assertEquals(Map.of(), cache.load("other"));
+  }
+
+  private CommitMessageScopeParser countingParser(AtomicInteger parsed) {
+    return new CommitMessageScopeParser() {
+      @Override
+      public Optional<Scope> parse(String messageBody, boolean preV1) {
+        parsed.incrementAndGet();
+        return CommitMessageScopeParser.subjectPrefix().parse(messageBody, preV1);
+      }
+
+      @Override
+      public Optional<String> getFingerprint() {
+        return Optional.of("counting");
+      }
+    };
+  }
+
+  private VcsInventory inventory(Git git, CommitScopeCache scopeCache) {
+    return GitInventorySupplier.builder(git.getRepository(), VersionTagParser.getDefault()).scopeCache(scopeCache).build().getInventory();
+  }
+}
@@ -1,19 +1,35 @@
 package org.ajoberstar.reckon.core;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeCommand;
+import org.eclipse.jgit.api.ResetCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class GitInventorySupplierTest {
@@ -141,6 +157,31 @@ public class GitInventorySupplierTest {
     assertEquals(Set.of(Version.parse("0.2.0").get()), supplier.getInventory().getParallelNormals());
   }
 
+  @Test
+  @DisplayName("if parallel versions are not a possible target normal, they are not returned")
+  public void nonTargetParallelNotReturned(@TempDir Path parallelRepoDir) throws IOException, GitAPIException {
+    try (var parallelGit = TestRepositories.init(parallelRepoDir)) {
+      parallelGit.commit().setMessage("first").setAllowEmpty(true).call();
+      parallelGit.tag().setName("0.1.0").call();
+      var mainBranch = parallelGit.getRepository().getBranch();
+      parallelGit.checkout().setName("RB_0.2").setCreateBranch(true).call();
+      parallelGit.commit().setMessage("minor").setAllowEmpty(true).call();
+      parallelGit.tag().setName("0.2.0-rc.1").call();
+      parallelGit.checkout().setName(mainBranch).call();
+      parallelGit.checkout().setName("RB_0.5").setCreateBranch(true).call();
+      parallelGit.commit().setMessage("skipped").setAllowEmpty(true).call();
+      parallelGit.tag().setName("0.5.0-rc.1").call();
+      parallelGit.checkout().setName(mainBranch).call();
+      parallelGit.commit().setMessage("second").setAllowEmpty(true).call();
+
+      var inventory = new GitInventorySupplier(parallelGit.getRepository(), VersionTagParser.getDefault()).getInventory();
+      assertEquals(Version.parse("0.1.0").get(), inventory.getBaseNormal());
+      // 0.5.0-rc.1 is tagged on a parallel branch, but 0.1.0 can only go to 0.1.1, 0.2.0, or 1.0.0
+      assertEquals(Set.of(Version.parse("0.2.0").get()), inventory.getParallelNormals());
+      assertTrue(inventory.getClaimedVersions().contains(Version.parse("0.5.0-rc.1").get()));
+    }
+  }
+
   @Test
   @DisplayName("all tagged versions treated as claimed versions")
   public void allTagsClaimed() {
@@ -153,6 +194,15 @@ public class GitInventorySupplierTest {
         Version.parse("1.0.0").get()), supplier.getInventory().getClaimedVersions());
   }
 
+  @Test
+  @DisplayName("tags that aren't versions are skipped without being peeled")
+  public void nonVersionTagsSkipped() {
+    var inventory = supplier.getInventory();
+    var metrics = supplier.getMetrics();
+    assertEquals(1, metrics.getSkippedTagRefs());
+    assertEquals(inventory.getClaimedVersions().size() + 1, metrics.getTagRefs());
+  }
+
   @Test
   @DisplayName("if no commits, all results are empty")
   public void noCommitsEmpty() throws IOException, GitAPIException {
@@ -165,6 +215,491 @@ public class GitInventorySupplierTest {
     assertEquals(VcsInventory.empty(true), emptySupplier.getInventory());
   }
 
+  @Test
+  @DisplayName("tagged versions in the history of a tagged parent are never the base")
+  public void baseExcludesParentsOfTagged(@TempDir Path nearRepoDir) throws IOException, GitAPIException {
+    try (var nearGit = TestRepositories.init(nearRepoDir)) {
+      nearGit.commit().setMessage("first").setAllowEmpty(true).call();
+      nearGit.tag().setName("1.0.0-rc.1").call();
+      nearGit.commit().setMessage("second").setAllowEmpty(true).call();
+      nearGit.tag().setName("0.9.0").call();
+      nearGit.commit().setMessage("third").setAllowEmpty(true).call();
+
+      var inventory = new GitInventorySupplier(nearGit.getRepository(), VersionTagParser.getDefault()).getInventory();
+      assertEquals(Version.parse("0.9.0").get(), inventory.getBaseVersion());
+      assertEquals(Version.parse("0.9.0").get(), inventory.getBaseNormal());
+      assertEquals(1, inventory.getCommitsSinceBase());
+      assertEquals(List.of("third"), inventory.getCommitMessages());
+    }
+  }
+
+  @Test
+  @DisplayName("commit messages are read in batches, in order, whether loose or packed")
+  public void commitMessagesReadInBatches(@TempDir Path batchRepoDir) throws IOException, GitAPIException {
+    try (var batchGit = TestRepositories.init(batchRepoDir)) {
+      batchGit.commit().setMessage("first").setAllowEmpty(true).call();
+      batchGit.tag().setName("1.0.0").call();
+      var expected = new ArrayList<String>();
+      for (var i = 0; i < 100; i++) {
+        var message = "commit " + i;
+        batchGit.commit().setMessage(message).setAllowEmpty(true).call();
+        expected.add(0, message);
+      }
+
+      var loose = new GitInventorySupplier(batchGit.getRepository(), VersionTagParser.getDefault()).getInventory();
+      assertEquals(expected, loose.getCommitMessages());
+      try (var messages = loose.streamCommitMessages()) {
+        assertEquals(expected.subList(0, 20), messages.limit(20).collect(Collectors.toList()));
+      }
+
+      batchGit.gc().call();
+      var packed = new GitInventorySupplier(batchGit.getRepository(), VersionTagParser.getDefault()).getInventory();
+      try (var messages = packed.streamCommitMessages()) {
+        assertEquals(expected, messages.collect(Collectors.toList()));
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("commit-graph generations and reachability bitmaps are used when present, without changing the inventory")
+  public void commitGraphAndBitmapsUsed(@TempDir Path graphRepoDir) throws IOException, GitAPIException {
+    try (var graphGit = TestRepositories.init(graphRepoDir)) {
+      graphGit.commit().setMessage("first").setAllowEmpty(true).call();
+      graphGit.tag().setName("0.1.0").call();
+      var mainBranch = graphGit.getRepository().getBranch();
+      graphGit.checkout().setName("RB_0.2").setCreateBranch(true).call();
+      graphGit.commit().setMessage("parallel").setAllowEmpty(true).call();
+      graphGit.tag().setName("0.2.0-rc.1").call();
+      graphGit.checkout().setName(mainBranch).call();
+      graphGit.commit().setMessage("second").setAllowEmpty(true).call();
+
+      var withoutGraph = new GitInventorySupplier(graphGit.getRepository(), VersionTagParser.getDefault());
+      var expected = withoutGraph.getInventory();
+      assertEquals(false, withoutGraph.getMetrics().isCommitGraph());
+      assertEquals(false, withoutGraph.getMetrics().isBitmapIndex());
+
+      var config = graphGit.getRepository().getConfig();
+      // JGit only writes the graph if it's enabled, but reckon should read it either way
+      config.setBoolean("core", null, "commitGraph", true);
+      config.setBoolean("gc", null, "writeCommitGraph", true);
+      graphGit.gc().call();
+      config.setBoolean("core", null, "commitGraph", false);
+      // this commit isn't in the graph or bitmaps
+      graphGit.commit().setMessage("third").setAllowEmpty(true).call();
+      graphGit.checkout().setName(graphGit.getRepository().resolve("HEAD~1").name()).call();
+
+      var withGraph = new GitInventorySupplier(graphGit.getRepository(), VersionTagParser.getDefault());
+      assertEquals(expected, withGraph.getInventory());
+      assertEquals(true, withGraph.getMetrics().isCommitGraph());
+      assertEquals(true, withGraph.getMetrics().isBitmapIndex());
+      assertEquals(Set.of(Version.parse("0.2.0").get()), expected.getParallelNormals());
+
+      graphGit.checkout().setName(mainBranch).call();
+      var inventory = withGraph.getInventory();
+      assertEquals(List.of("third", "second"), inventory.getCommitMessages());
+      assertEquals(Set.of(Version.parse("0.2.0").get()), inventory.getParallelNormals());
+    }
+  }
+
+  @Test
+  @DisplayName("parallel walk stops at the merge base, even with old tags in HEAD's history")
+  public void parallelWalkStopsAtMergeBase(@TempDir Path deepRepoDir) throws IOException, GitAPIException {
+    try (var deepGit = TestRepositories.init(deepRepoDir)) {
+      deepGit.commit().setMessage("root").setAllowEmpty(true).call();
+      deepGit.tag().setName("0.1.0").call();
+      for (var i = 0; i < 200; i++) {
+        deepGit.commit().setMessage("old " + i).setAllowEmpty(true).call();
+      }
+      var mainBranch = deepGit.getRepository().getBranch();
+      deepGit.checkout().setName("RB_0.2").setCreateBranch(true).call();
+      deepGit.commit().setMessage("parallel").setAllowEmpty(true).call();
+      deepGit.tag().setName("0.2.0-rc.1").call();
+      deepGit.checkout().setName(mainBranch).call();
+      for (var i = 0; i < 5; i++) {
+        deepGit.commit().setMessage("new " + i).setAllowEmpty(true).call();
+      }
+
+      var config = deepGit.getRepository().getConfig();
+      config.setBoolean("core", null, "commitGraph", true);
+      config.setBoolean("gc", null, "writeCommitGraph", true);
+      deepGit.gc().call();
+
+      var supplier = new GitInventorySupplier(deepGit.getRepository(), VersionTagParser.getDefault());
+      assertEquals(Set.of(Version.parse("0.2.0").get()), supplier.getInventory().getParallelNormals());
+      assertTrue(supplier.getMetrics().isCommitGraph());
+      // HEAD down to the merge base, and the candidate
+      assertEquals(7, supplier.getMetrics().getParallelWalkCommits());
+    }
+  }
+
+  @Test
+  @DisplayName("parallel candidates older than the clock skew window are pruned")
+  public void clockSkewWindowPrunesOldCandidates(@TempDir Path skewRepoDir) throws IOException, GitAPIException {
+    try (var skewGit = TestRepositories.init(skewRepoDir)) {
+      var now = Instant.now();
+      skewGit.commit().setMessage("first").setAllowEmpty(true).setCommitter(committer(now.minus(Duration.ofDays(30)))).call();
+      skewGit.tag().setName("0.1.0").call();
+      var mainBranch = skewGit.getRepository().getBranch();
+      skewGit.checkout().setName("RB_0.2").setCreateBranch(true).call();
+      // made on a machine whose clock was far behind
+      skewGit.commit().setMessage("parallel").setAllowEmpty(true).setCommitter(committer(now.minus(Duration.ofDays(40)))).call();
+      skewGit.tag().setName("0.2.0-rc.1").call();
+      skewGit.checkout().setName(mainBranch).call();
+      skewGit.commit().setMessage("second").setAllowEmpty(true).setCommitter(committer(now)).call();
+
+      var unpruned = new GitInventorySupplier(skewGit.getRepository(), VersionTagParser.getDefault());
+      assertEquals(Set.of(Version.parse("0.2.0").get()), unpruned.getInventory().getParallelNormals());
+      assertEquals(0, unpruned.getMetrics().getPrunedCandidates());
+
+      var wide = GitInventorySupplier.builder(skewGit.getRepository(), VersionTagParser.getDefault()).clockSkewWindow(Duration.ofDays(14)).build();
+      assertEquals(Set.of(Version.parse("0.2.0").get()), wide.getInventory().getParallelNormals());
+      assertEquals(0, wide.getMetrics().getPrunedCandidates());
+
+      var narrow = GitInventorySupplier.builder(skewGit.getRepository(), VersionTagParser.getDefault()).clockSkewWindow(Duration.ofDays(1)).build();
+      var inventory = narrow.getInventory();
+      assertEquals(Set.of(), inventory.getParallelNormals());
+      assertEquals(1, narrow.getMetrics().getPrunedCandidates());
+      assertEquals(Version.parse("0.1.0").get(), inventory.getBaseNormal());
+      assertEquals(List.of("second"), inventory.getCommitMessages());
+
+      // inventories found with one window aren't reused by builds with another
+      var cache = new MapInventoryCache();
+      var cachedNarrow = GitInventorySupplier.builder(skewGit.getRepository(), VersionTagParser.getDefault()).cache(cache).clockSkewWindow(Duration.ofDays(1)).build();
+      assertEquals(Set.of(), cachedNarrow.getInventory().getParallelNormals());
+      var cachedUnpruned = GitInventorySupplier.builder(skewGit.getRepository(), VersionTagParser.getDefault()).cache(cache).build();
+      assertEquals(Set.of(Version.parse("0.2.0").get()), cachedUnpruned.getInventory().getParallelNormals());
+    }
+  }
+
+  @Test
+  @DisplayName("in first-parent mode, parallel candidates aren't pruned, as merged branches may be older")
+  public void clockSkewWindowIgnoredForFirstParent(@TempDir Path skewRepoDir) throws IOException, GitAPIException {
+    try (var skewGit = TestRepositories.init(skewRepoDir)) {
+      var now = Instant.now();
+      skewGit.commit().setMessage("first").setAllowEmpty(true).setCommitter(committer(now.minus(Duration.ofDays(10)))).call();
+      var mainBranch = skewGit.getRepository().getBranch();
+      // an older, unrelated history that gets merged in
+      skewGit.checkout().setName("imported").setOrphan(true).call();
+      skewGit.commit().setMessage("imported").setAllowEmpty(true).setCommitter(committer(now.minus(Duration.ofDays(60)))).call();
+      skewGit.checkout().setName("RB_0.1").setCreateBranch(true).call();
+      skewGit.commit().setMessage("parallel").setAllowEmpty(true).setCommitter(committer(now.minus(Duration.ofDays(58)))).call();
+      skewGit.tag().setName("0.1.0-rc.1").call();
+      skewGit.checkout().setName(mainBranch).call();
+      skewGit.merge()
+          .include(skewGit.getRepository().resolve("imported"))
+          .setFastForward(MergeCommand.FastForwardMode.NO_FF)
+          .setCommit(false)
+          .call();
+      skewGit.commit().setMessage("merge imported").setCommitter(committer(now)).call();
+
+      var allParents = GitInventorySupplier.builder(skewGit.getRepository(), VersionTagParser.getDefault()).clockSkewWindow(Duration.ofDays(1)).build();
+      assertEquals(Set.of(Version.parse("0.1.0").get()), allParents.getInventory().getParallelNormals());
+
+      var firstParent = GitInventorySupplier.builder(skewGit.getRepository(), VersionTagParser.getDefault())
+          .clockSkewWindow(Duration.ofDays(1))
+          .firstParent(true)
+          .build();
+      var inventory = firstParent.getInventory();
+      assertEquals(List.of("merge imported", "first"), inventory.getCommitMessages());
+      assertEquals(Set.of(Version.parse("0.1.0").get()), inventory.getParallelNormals());
+      assertEquals(0, firstParent.getMetrics().getPrunedCandidates());
+    }
+  }
+
+  @Test
+  @DisplayName("if the walk limit is reached, older history is treated as untagged or fails by policy")
+  public void walkLimitPolicies() throws IOException, GitAPIException {
+    checkout("head-single-tag");
+    var unlimited = supplier.getInventory();
+    assertEquals(false, unlimited.isWalkLimitReached());
+    assertEquals(4, unlimited.getCommitsSinceBase());
+
+    var noBase = GitInventorySupplier.builder(git.getRepository(), VersionTagParser.getDefault()).maxWalkDepth(2, WalkLimitPolicy.NO_BASE).build().getInventory();
+    assertEquals(true, noBase.isWalkLimitReached());
+    assertEquals(Version.parse("0.1.0-milestone.1").get(), noBase.getBaseVersion());
+    assertEquals(Version.IDENTITY, noBase.getBaseNormal());
+    assertEquals(2, noBase.getCommitsSinceBase());
+
+    var fail = GitInventorySupplier.builder(git.getRepository(), VersionTagParser.getDefault()).maxWalkDepth(2, WalkLimitPolicy.FAIL).build();
+    assertThrows(IllegalStateException.class, fail::getInventory);
+
+    var enough = GitInventorySupplier.builder(git.getRepository(), VersionTagParser.getDefault()).maxWalkDepth(4, WalkLimitPolicy.FAIL).build();
+    assertEquals(unlimited, enough.getInventory());
+
+    // inventories found within a walk limit aren't reused by builds with another limit or policy
+    var cache = new MapInventoryCache();
+    var cachedNoBase = GitInventorySupplier.builder(git.getRepository(), VersionTagParser.getDefault()).cache(cache).maxWalkDepth(2, WalkLimitPolicy.NO_BASE).build();
+    assertEquals(noBase, cachedNoBase.getInventory());
+    var cachedFail = GitInventorySupplier.builder(git.getRepository(), VersionTagParser.getDefault()).cache(cache).maxWalkDepth(2, WalkLimitPolicy.FAIL).build();
+    assertThrows(IllegalStateException.class, cachedFail::getInventory);
+    var cachedUnlimited = GitInventorySupplier.builder(git.getRepository(), VersionTagParser.getDefault()).cache(cache).build();
+    assertEquals(unlimited, cachedUnlimited.getInventory());
+  }
+
+  @Test
+  @DisplayName("if the walk limit is reached, the cached base of the branch can be used instead")
+  public void walkLimitUsesCachedBase(@TempDir Path limitRepoDir) throws IOException, GitAPIException {
+    try (var limitGit = TestRepositories.init(limitRepoDir)) {
+      limitGit.commit().setMessage("first").setAllowEmpty(true).call();
+      limitGit.tag().setName("1.0.0").call();
+      var second = limitGit.commit().setMessage("second").setAllowEmpty(true).call();
+      limitGit.commit().setMessage("third").setAllowEmpty(true).call();
+
+      var cache = new MapInventoryCache();
+      var cachedSupplier = GitInventorySupplier.builder(limitGit.getRepository(), VersionTagParser.getDefault())
+          .cache(cache)
+          .maxWalkDepth(3, WalkLimitPolicy.CACHED_BASE)
+          .build();
+      assertEquals(Version.parse("1.0.0").get(), cachedSupplier.getInventory().getBaseNormal());
+
+      // the cached commit is no longer an ancestor, so it can't be updated incrementally
+      limitGit.reset().setMode(ResetCommand.ResetType.HARD).setRef(second.name()).call();
+      limitGit.commit().setMessage("fourth").setAllowEmpty(true).call();
+      limitGit.commit().setMessage("fifth").setAllowEmpty(true).call();
+
+      var inventory = cachedSupplier.getInventory();
+      assertEquals(true, inventory.isWalkLimitReached());
+      assertEquals(Version.parse("1.0.0").get(), inventory.getBaseVersion());
+      assertEquals(Version.parse("1.0.0").get(), inventory.getBaseNormal());
+      assertEquals(List.of("fifth", "fourth", "second"), inventory.getCommitMessages());
+
+      var noBase = GitInventorySupplier.builder(limitGit.getRepository(), VersionTagParser.getDefault()).maxWalkDepth(3, WalkLimitPolicy.CACHED_BASE).build();
+      assertEquals(Version.IDENTITY, noBase.getInventory().getBaseNormal());
+    }
+  }
+
+  @Test
+  @DisplayName("commits are released to stay within the memory budget, without changing the inventory")
+  public void memoryBudgetReleasesCommits(@TempDir Path budgetRepoDir) throws IOException, GitAPIException {
+    try (var budgetGit = TestRepositories.init(budgetRepoDir)) {
+      var start = Instant.now().minus(Duration.ofDays(1));
+      budgetGit.commit().setMessage("0").setAllowEmpty(true).setCommitter(committer(start)).call();
+      budgetGit.tag().setName("1.0.0").call();
+      var mainBranch = budgetGit.getRepository().getBranch();
+      for (var i = 1; i <= 30; i++) {
+        if (i == 10) {
+          budgetGit.branchCreate().setName("side").call();
+        } else if (i == 15) {
+          budgetGit.checkout().setName("side").call();
+        } else if (i == 20) {
+          budgetGit.checkout().setName(mainBranch).call();
+          budgetGit.merge().include(budgetGit.getRepository().resolve("side")).setCommit(false).call();
+        }
+        budgetGit.commit().setMessage(Integer.toString(i)).setAllowEmpty(true).setCommitter(committer(start.plusSeconds(i * 60))).call();
+      }
+
+      var unbudgeted = new GitInventorySupplier(budgetGit.getRepository(), VersionTagParser.getDefault());
+      var expected = unbudgeted.getInventory();
+      assertEquals(30, expected.getCommitsSinceBase());
+      assertEquals(0, unbudgeted.getMetrics().getRecycles());
+
+      var budgeted = GitInventorySupplier.builder(budgetGit.getRepository(), VersionTagParser.getDefault()).maxRetainedCommits(5).build();
+      assertEquals(expected, budgeted.getInventory());
+      assertTrue(budgeted.getMetrics().getRecycles() > 0);
+      assertTrue(budgeted.getMetrics().getPeakRetainedCommits() < unbudgeted.getMetrics().getPeakRetainedCommits());
+    }
+  }
+
+  @Test
+  @DisplayName("in first-parent mode, merged branches are not walked for the base or commits since it")
+  public void firstParentSkipsMergedBranches(@TempDir Path mergeRepoDir) throws IOException, GitAPIException {
+    try (var mergeGit = TestRepositories.init(mergeRepoDir)) {
+      mergeGit.commit().setMessage("first").setAllowEmpty(true).call();
+      mergeGit.tag().setName("1.0.0").call();
+      var mainBranch = mergeGit.getRepository().getBranch();
+      mergeGit.checkout().setName("feature").setCreateBranch(true).call();
+      mergeGit.commit().setMessage("feature one").setAllowEmpty(true).call();
+      mergeGit.commit().setMessage("feature two").setAllowEmpty(true).call();
+      mergeGit.tag().setName("1.1.0-rc.1").call();
+      mergeGit.checkout().setName(mainBranch).call();
+      mergeGit.merge()
+          .include(mergeGit.getRepository().resolve("feature"))
+          .setFastForward(MergeCommand.FastForwardMode.NO_FF)
+          .setMessage("merge feature")
+          .call();
+      mergeGit.commit().setMessage("second").setAllowEmpty(true).call();
+
+      var allParents = new GitInventorySupplier(mergeGit.getRepository(), VersionTagParser.getDefault()).getInventory();
+      assertEquals(Version.parse("1.1.0-rc.1").get(), allParents.getBaseVersion());
+      assertEquals(4, allParents.getCommitsSinceBase());
+
+      var firstParent = GitInventorySupplier.builder(mergeGit.getRepository(), VersionTagParser.getDefault()).firstParent(true).build().getInventory();
+      assertEquals(Version.parse("1.0.0").get(), firstParent.getBaseVersion());
+      assertEquals(Version.parse("1.0.0").get(), firstParent.getBaseNormal());
+      assertEquals(List.of("second", "merge feature"), firstParent.getCommitMessages());
+      assertEquals(2, firstParent.getCommitsSinceBase());
+    }
+  }
+
+  @Test
+  @DisplayName("status is checked with the given executor")
+  public void statusCheckedWithExecutor(@TempDir Path statusRepoDir) throws IOException, GitAPIException {
+    try (var statusGit = TestRepositories.init(statusRepoDir)) {
+      statusGit.commit().setMessage("first").setAllowEmpty(true).call();
+      statusGit.tag().setName("1.0.0").call();
+      Files.writeString(statusRepoDir.resolve("untracked.txt"), "not committed");
+
+      var executed = new AtomicInteger();
+      var executor = Executors.newSingleThreadExecutor();
+      try {
+        var statusSupplier = GitInventorySupplier.builder(statusGit.getRepository(), VersionTagParser.getDefault())
+            .statusExecutor(task -> {
+              executed.incrementAndGet();
+              executor.execute(task);
+            })
+            .build();
+        var expected = new GitInventorySupplier(statusGit.getRepository(), VersionTagParser.getDefault()).getInventory();
+        assertEquals(false, expected.isClean());
+        assertEquals(expected, statusSupplier.getInventory());
+        assertEquals(1, executed.get());
+      } finally {
+        executor.shutdown();
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("cached inventories are reused when HEAD and tags are unchanged")
+  public void cachedInventoryReused() throws IOException, GitAPIException {
+    checkout("final-reachable");
+    var cache = new MapInventoryCache();
+    var cachedSupplier = GitInventorySupplier.builder(git.getRepository(), VersionTagParser.getDefault()).cache(cache).build();
+
+    var expected = supplier.getInventory();
+    assertEquals(expected, cachedSupplier.getInventory());
+
+    // replace the stored inventories to prove they are what gets returned
+    cache.stored.replaceAll((key, inventory) -> VcsInventory.empty(false));
+    assertEquals(VcsInventory.empty(true), cachedSupplier.getInventory());
+
+    checkout("parallel-untagged-since-merge");
+    assertEquals(supplier.getInventory(), cachedSupplier.getInventory());
+  }
+
+  @Test
+  @DisplayName("cached inventories are updated incrementally when HEAD moves forward")
+  public void cachedInventoryUpdatedIncrementally() throws IOException, GitAPIException {
+    checkout("final-reachable");
+    branch("incremental");
+    checkout("incremental");
+    var cache = new MapInventoryCache();
+    var cachedSupplier = GitInventorySupplier.builder(git.getRepository(), VersionTagParser.getDefault()).cache(cache).build();
+
+    var prior = cachedSupplier.getInventory();
+
+    // drop the claimed versions to prove the prior inventory gets reused
+    var poisoned = new VcsInventory(
+        prior.getCommitId().get(),
+        prior.isClean(),
+        prior.getCurrentVersion().orElse(null),
+        prior.getBaseVersion(),
+        prior.getBaseNormal(),
+        prior.getCommitsSinceBase(),
+        VcsInventory.calculated(prior.getParallelNormals()),
+        VcsInventory.calculated(Set.of()),
+        prior.getCommitMessageSource(),
+        prior.isWalkLimitReached());
+    cache.stored.replaceAll((key, inventory) -> poisoned);
+
+    commit();
+    commit();
+
+    var expected = supplier.getInventory();
+    var actual = cachedSupplier.getInventory();
+    assertEquals(prior.getCommitsSinceBase() + 2, actual.getCommitsSinceBase());
+    assertEquals(expected.getCommitsSinceBase(), actual.getCommitsSinceBase());
+    assertEquals(expected.getBaseNormal(), actual.getBaseNormal());
+    assertEquals(expected.getBaseVersion(), actual.getBaseVersion());
+    assertEquals(expected.getParallelNormals(), actual.getParallelNormals());
+    assertEquals(expected.getCommitMessages(), actual.getCommitMessages());
+    assertEquals(Set.of(), actual.getClaimedVersions());
+    assertTrue(actual.getCommitMessageSource().getCommitIds().isPresent());
+
+    // without the IDs of its commits, the prior inventory can't be updated
+    var textOnly = new VcsInventory(
+        poisoned.getCommitId().get(),
+        poisoned.isClean(),
+        poisoned.getCurrentVersion().orElse(null),
+        poisoned.getBaseVersion(),
+        poisoned.getBaseNormal(),
+        poisoned.getCommitsSinceBase(),
+        poisoned.getParallelNormals(),
+        Set.of(),
+        poisoned.getCommitMessages());
+    cache.stored.replaceAll((key, inventory) -> textOnly);
+    commit();
+    assertEquals(supplier.getInventory(), cachedSupplier.getInventory());
+  }
+
+  @Test
+  @DisplayName("cached inventories are keyed by the tag parser's fingerprint")
+  public void cachedInventoryKeyedByTagParser() throws IOException, GitAPIException {
+    checkout("final-reachable");
+    var cache = new MapInventoryCache();
+    GitInventorySupplier.builder(git.getRepository(), VersionTagParser.getDefault()).cache(cache).build().getInventory();
+    var defaultKeys = Set.copyOf(cache.stored.keySet());
+
+    VersionTagParser noneParser = new VersionTagParser() {
+      @Override
+      public Optional<Version> parse(String tagName) {
+        return Optional.empty();
+      }
+
+      @Override
+      public Optional<String> getFingerprint() {
+        return Optional.of("none");
+      }
+    };
+    var inventory = GitInventorySupplier.builder(git.getRepository(), noneParser).cache(cache).build().getInventory();
+    assertEquals(Version.IDENTITY, inventory.getBaseNormal());
+    assertEquals(defaultKeys.size() * 2, cache.stored.size());
+
+    // without a fingerprint, nothing is cached
+    VersionTagParser unknownParser = tagName -> Optional.empty();
+    GitInventorySupplier.builder(git.getRepository(), unknownParser).cache(cache).build().getInventory();
+    assertEquals(defaultKeys.size() * 2, cache.stored.size());
+  }
+
+  @Test
+  @DisplayName("file cache round trips inventories")
+  public void fileCacheRoundTrips(@TempDir Path cacheDir) throws IOException, GitAPIException {
+    var cachedSupplier = GitInventorySupplier.builder(git.getRepository(), VersionTagParser.getDefault()).cache(VcsInventoryCache.ofDirectory(cacheDir)).build();
+
+    for (var branch : List.of("final-reachable", "version-current", "parallel-untagged-since-merge", "final-unreachable")) {
+      checkout(branch);
+      var expected = supplier.getInventory();
+      // first populates the cache, second reads from it
+      assertEquals(expected, cachedSupplier.getInventory());
+      assertEquals(expected, cachedSupplier.getInventory());
+    }
+  }
+
+  @Test
+  @DisplayName("file cache only stores what was already calculated, and commit messages by ID")
+  public void fileCacheStoresCalculatedFacets(@TempDir Path cacheDir) throws IOException, GitAPIException {
+    checkout("parallel-untagged-since-merge");
+    var expected = supplier.getInventory();
+
+    var cache = VcsInventoryCache.ofDirectory(cacheDir);
+    GitInventorySupplier.builder(git.getRepository(), VersionTagParser.getDefault()).cache(cache).build().getInventory();
+    try (var files = Files.list(cacheDir)) {
+      for (var file : files.collect(Collectors.toList())) {
+        var stored = Files.readString(file);
+        assertTrue(stored.contains("commitIds="));
+        assertFalse(stored.contains("commitMessages"));
+        assertFalse(stored.contains("parallelNormals="));
+      }
+    }
+
+    // read from the cache, and calculated from the repository as asked for
+    var cachedSupplier = GitInventorySupplier.builder(git.getRepository(), VersionTagParser.getDefault()).cache(cache).build();
+    var cached = cachedSupplier.getInventory();
+    assertEquals(expected.getCommitMessages(), cached.getCommitMessages());
+    assertEquals(expected.getParallelNormals(), cached.getParallelNormals());
+    assertEquals(expected.getClaimedVersions(), cached.getClaimedVersions());
+    assertEquals(expected, cached);
+  }
+
   @BeforeAll
   public void initRepository() throws IOException, GitAPIException {
     repoDir = Files.createTempDirectory("repo");
@@ -258,6 +793,24 @@ public class GitInventorySupplierTest {
     supplier = new GitInventorySupplier(git.getRepository(), VersionTagParser.getDefault());
   }
 
+  private static class MapInventoryCache implements VcsInventoryCache {
+    private final Map<String, VcsInventory> stored = new HashMap<>();
+
+    @Override
+    public Optional<VcsInventory> load(String key) {
+      return Optional.ofNullable(stored.get(key));
+    }
+
+    @Override
+    public void store(String key, VcsInventory inventory) {
+      stored.put(key, inventory);
+    }
+  }
+
+  private PersonIdent committer(Instant when) {
+    return new PersonIdent("Some Person", "some.person@example.com", when, ZoneOffset.UTC);
+  }
+
   private void commit() throws IOException, GitAPIException {
     var bytes = new byte[128];
     random.nextBytes(bytes);
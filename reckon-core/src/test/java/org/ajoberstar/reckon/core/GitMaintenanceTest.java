@@ -0,0 +1,58 @@
+package org.ajoberstar.reckon.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GitMaintenanceTest {
+  @Test
+  @DisplayName("maintenance packs refs and writes commit-graph and bitmaps without changing the inventory")
+  public void maintainWritesIndexes(@TempDir Path repoDir) throws IOException, GitAPIException {
+    try (var git = TestRepositories.init(repoDir)) {
+      git.commit().setMessage("first").setAllowEmpty(true).call();
+      git.tag().setName("0.1.0").call();
+      git.commit().setMessage("second").setAllowEmpty(true).call();
+      git.tag().setName("0.2.0-rc.1").call();
+      git.commit().setMessage("third").setAllowEmpty(true).call();
+
+      var gitDir = git.getRepository().getDirectory().toPath();
+      assertTrue(Files.exists(gitDir.resolve("refs/tags/0.1.0")));
+
+      var expected = new GitInventorySupplier(git.getRepository(), VersionTagParser.getDefault()).getInventory();
+      var report = GitMaintenance.maintain(git.getRepository(), VersionTagParser.getDefault());
+      assertFalse(report.getInferenceBefore().isNegative());
+      assertFalse(report.getInferenceAfter().isNegative());
+
+      assertFalse(Files.exists(gitDir.resolve("refs/tags/0.1.0")));
+      assertTrue(Files.exists(gitDir.resolve("packed-refs")));
+      assertTrue(Files.exists(gitDir.resolve("objects/info/commit-graph")));
+      assertEquals(1, countFiles(gitDir.resolve("objects/pack"), ".bitmap"));
+
+      // enabling the commit-graph was only temporary
+      assertNull(git.getRepository().getConfig().getString("core", null, "commitGraph"));
+
+      var supplier = new GitInventorySupplier(git.getRepository(), VersionTagParser.getDefault());
+      assertEquals(expected, supplier.getInventory());
+      assertTrue(supplier.getMetrics().isCommitGraph());
+      assertTrue(supplier.getMetrics().isBitmapIndex());
+    }
+  }
+
+  private long countFiles(Path dir, String extension) throws IOException {
+    try (var files = Files.list(dir)) {
+      return files.filter(file -> file.getFileName().toString().endsWith(extension))
+          .collect(Collectors.counting());
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package org.ajoberstar.reckon.core;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.submodule.SubmoduleWalk.IgnoreSubmoduleMode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GitStatusCheckTest {
+  @Test
+  @DisplayName("untracked files only make the repository unclean when they are checked")
+  public void untrackedFilesOptional(@TempDir Path repoDir) throws IOException, GitAPIException {
+    try (var git = TestRepositories.init(repoDir)) {
+      Files.createDirectories(repoDir.resolve("src"));
+      Files.writeString(repoDir.resolve("src/tracked.txt"), "committed");
+      git.add().addFilepattern("src/tracked.txt").call();
+      git.commit().setMessage("first").call();
+
+      var withUntracked = new GitStatusCheck(git.getRepository());
+      var withoutUntracked = GitStatusCheck.builder(git.getRepository()).untrackedFiles(false).build();
+      assertTrue(withUntracked.isClean());
+      assertTrue(withoutUntracked.isClean());
+
+      Files.createDirectories(repoDir.resolve("build/output"));
+      Files.writeString(repoDir.resolve("build/output/untracked.txt"), "not committed");
+      Files.writeString(repoDir.resolve("src/untracked.txt"), "not committed");
+      assertFalse(withUntracked.isClean());
+      assertTrue(withoutUntracked.isClean());
+
+      Files.writeString(repoDir.resolve("src/tracked.txt"), "changed");
+      assertFalse(withUntracked.isClean());
+      assertFalse(withoutUntracked.isClean());
+    }
+  }
+
+  @Test
+  @DisplayName("changes outside the checked paths don't make the repository unclean")
+  public void pathsLimitCheck(@TempDir Path repoDir) throws IOException, GitAPIException {
+    try (var git = TestRepositories.init(repoDir)) {
+      for (var path : List.of("products/a/main.txt", "products/a/docs/guide.txt", "products/b/main.txt", "root.txt")) {
+        Files.createDirectories(repoDir.resolve(path).getParent());
+        Files.writeString(repoDir.resolve(path), "committed");
+        git.add().addFilepattern(path).call();
+      }
+      git.commit().setMessage("first").call();
+
+      var whole = new GitStatusCheck(git.getRepository());
+      var productA = GitStatusCheck.builder(git.getRepository()).paths(List.of("products/a"), List.of("products/a/docs")).build();
+      var notProductB = GitStatusCheck.builder(git.getRepository()).paths(List.of(), List.of("products/b")).build();
+
+      Files.writeString(repoDir.resolve("products/b/main.txt"), "changed");
+      Files.writeString(repoDir.resolve("products/a/docs/guide.txt"), "changed");
+      Files.writeString(repoDir.resolve("products/untracked.txt"), "not committed");
+      assertFalse(whole.isClean());
+      assertTrue(productA.isClean());
+      assertFalse(notProductB.isClean());
+
+      Files.delete(repoDir.resolve("products/a/docs/guide.txt"));
+      Files.delete(repoDir.resolve("products/untracked.txt"));
+      Files.writeString(repoDir.resolve("products/a/docs/guide.txt"), "committed");
+      assertTrue(notProductB.isClean());
+
+      Files.writeString(repoDir.resolve("products/a/new.txt"), "not committed");
+      assertFalse(productA.isClean());
+      assertFalse(notProductB.isClean());
+    }
+  }
+
+  @Test
+  @DisplayName("scanning in parallel finds the same changes as scanning on one thread")
+  public void parallelScan(@TempDir Path repoDir) throws IOException, GitAPIException {
+    var pool = new ForkJoinPool(3);
+    try (var git = TestRepositories.init(repoDir)) {
+      for (var dir : List.of("a", "b", "c", "d", "e")) {
+        for (var file = 0; file < 5; file++) {
+          var path = dir + "/nested/" + file + ".txt";
+          Files.createDirectories(repoDir.resolve(path).getParent());
+          Files.writeString(repoDir.resolve(path), "committed");
+          git.add().addFilepattern(path).call();
+        }
+      }
+      Files.writeString(repoDir.resolve("root.txt"), "committed");
+      git.add().addFilepattern("root.txt").call();
+      git.commit().setMessage("first").call();
+
+      var parallel = GitStatusCheck.builder(git.getRepository()).pool(pool).build();
+      var parallelTracked = GitStatusCheck.builder(git.getRepository()).untrackedFiles(false).pool(pool).build();
+      assertTrue(parallel.isClean());
+
+      Files.writeString(repoDir.resolve("c/nested/3.txt"), "changed");
+      assertFalse(parallel.isClean());
+      Files.writeString(repoDir.resolve("c/nested/3.txt"), "committed");
+      assertTrue(parallel.isClean());
+
+      Files.delete(repoDir.resolve("root.txt"));
+      assertFalse(parallel.isClean());
+      git.rm().addFilepattern("root.txt").call();
+      assertFalse(parallel.isClean());
+      git.commit().setMessage("second").call();
+      assertTrue(parallel.isClean());
+
+      Files.createDirectories(repoDir.resolve("untracked"));
+      Files.writeString(repoDir.resolve("untracked/new.txt"), "not committed");
+      assertFalse(parallel.isClean());
+      assertTrue(parallelTracked.isClean());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  @DisplayName("files are only compared by content when the index can't vouch for their size and modification time")
+  public void racilyCleanComparedByContent(@TempDir Path repoDir) throws IOException, GitAPIException {
+    try (var git = TestRepositories.init(repoDir)) {
+      // modified well before the index is written, so the index can vouch for it
+      var file = repoDir.resolve("file.txt");
+      var modified = FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS));
+      Files.writeString(file, "aaaa");
+      Files.setLastModifiedTime(file, modified);
+      git.add().addFilepattern("file.txt").call();
+      git.commit().setMessage("first").call();
+
+      var check = new GitStatusCheck(git.getRepository());
+      Files.writeString(file, "bbbb");
+      Files.setLastModifiedTime(file, modified);
+      assertTrue(check.isClean());
+
+      // as the index does when the file was modified as it was written
+      var index = git.getRepository().lockDirCache();
+      index.getEntry("file.txt").smudgeRacilyClean();
+      index.write();
+      index.commit();
+      assertFalse(check.isClean());
+    }
+  }
+
+  @Test
+  @DisplayName("submodules are clean according to their ignore mode")
+  public void submodulesFollowIgnoreMode(@TempDir Path subDir, @TempDir Path repoDir) throws IOException, GitAPIException {
+    try (var sub = TestRepositories.init(subDir); var git = TestRepositories.init(repoDir)) {
+      Files.writeString(subDir.resolve("sub.txt"), "committed");
+      sub.add().addFilepattern("sub.txt").call();
+      sub.commit().setMessage("first").call();
+
+      git.submoduleAdd().setPath("sub").setURI(subDir.toUri().toString()).call().close();
+      git.commit().setMessage("first").call();
+
+      var check = new GitStatusCheck(git.getRepository());
+      var ignoreAll = GitStatusCheck.builder(git.getRepository()).ignoreSubmodules(IgnoreSubmoduleMode.ALL).build();
+      assertTrue(check.isClean());
+      assertTrue(ignoreAll.isClean());
+
+      Files.writeString(repoDir.resolve("sub/sub.txt"), "changed");
+      assertFalse(check.isClean());
+      assertTrue(ignoreAll.isClean());
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package org.ajoberstar.reckon.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class KeywordScopeParserTest {
+  private final KeywordScopeParser parser = KeywordScopeParser.builder()
+      .conventionalCommits()
+      .keyword("[major]", Scope.MAJOR)
+      .keyword("[minor]", Scope.MINOR)
+      .keyword("[patch]", Scope.PATCH)
+      .build();
+
+  @Test
+  @DisplayName("conventional commit types, footers, and keywords are all found in one parser")
+  public void multipleConventions() {
+    assertEquals(Optional.of(Scope.MINOR), parser.parse("feat: add thing", false));
+    assertEquals(Optional.of(Scope.MINOR), parser.parse("feat(api): add thing\n\nfix: not a subject", false));
+    assertEquals(Optional.of(Scope.PATCH), parser.parse("fix: broken thing", false));
+    assertEquals(Optional.of(Scope.MAJOR), parser.parse("fix: broken thing\n\nBREAKING CHANGE: it changed", false));
+    assertEquals(Optional.of(Scope.MAJOR), parser.parse("fix: broken thing\n\nReviewed-by: Z\nBREAKING-CHANGE #12", false));
+    assertEquals(Optional.of(Scope.MAJOR), parser.parse("refactor(core)!: drop thing", false));
+    assertEquals(Optional.of(Scope.MAJOR), parser.parse("Update dependencies [major]", false));
+    assertEquals(Optional.of(Scope.PATCH), parser.parse("Update dependencies\n\nfixes it [patch]", false));
+
+    assertEquals(Optional.empty(), parser.parse("docs: explain thing", false));
+    assertEquals(Optional.empty(), parser.parse("feature: add thing", false));
+    assertEquals(Optional.empty(), parser.parse("feat:add thing", false));
+    assertEquals(Optional.empty(), parser.parse("feat(api: add thing", false));
+    assertEquals(Optional.empty(), parser.parse("Fix: broken thing", false));
+    assertEquals(Optional.empty(), parser.parse("Mention BREAKING CHANGE: mid-line", false));
+    assertEquals(Optional.empty(), parser.parse("", false));
+  }
+
+  @Test
+  @DisplayName("before v1, MAJOR is read as MINOR unless the subject is marked breaking")
+  public void preV1() {
+    assertEquals(Optional.of(Scope.MINOR), parser.parse("fix: thing\n\nBREAKING CHANGE: it changed", true));
+    assertEquals(Optional.of(Scope.MINOR), parser.parse("Update dependencies [major]", true));
+    assertEquals(Optional.of(Scope.MAJOR), parser.parse("feat!: go to 1.0", true));
+  }
+
+  @Test
+  @DisplayName("keywords that overlap are all found")
+  public void overlappingKeywords() {
+    var overlapping = KeywordScopeParser.builder()
+        .keyword("abcd", Scope.MINOR)
+        .keyword("bcx", Scope.MAJOR)
+        .keyword("c", Scope.PATCH)
+        .build();
+    assertEquals(Optional.of(Scope.MAJOR), overlapping.parse("abcx", false));
+    assertEquals(Optional.of(Scope.MINOR), overlapping.parse("xabcd", false));
+    assertEquals(Optional.of(Scope.PATCH), overlapping.parse("abce", false));
+    assertEquals(Optional.empty(), overlapping.parse("abd", false));
+  }
+
+  @Test
+  @DisplayName("raw commits are parsed the same as decoded messages")
+  public void rawMatchesDecoded() throws UnsupportedEncodingException {
+    var nonAscii = KeywordScopeParser.builder().conventionalCommits().keyword("[gro\u00df]", Scope.MAJOR).build();
+    var messages = List.of(
+        "feat: add thing",
+        "feat(\u00e4rea): add thing",
+        "chore!: \u00fcber",
+        "fix: broken thing\n\nBREAKING CHANGE: it changed",
+        "Update [gro\u00df]",
+        "docs: nothing");
+
+    for (var message : messages) {
+      for (var encoding : List.of(StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1)) {
+        for (var preV1 : List.of(true, false)) {
+          assertEquals(parser.parse(message, preV1), parser.parseRawCommit(rawCommit(message, encoding), preV1), message);
+          assertEquals(nonAscii.parse(message, preV1), nonAscii.parseRawCommit(rawCommit(message, encoding), preV1), message);
+        }
+      }
+    }
+  }
+
+  private byte[] rawCommit(String message, Charset encoding) throws UnsupportedEncodingException {
+    var person = new PersonIdent("Test", "test@example.com");
+    var commit = new CommitBuilder();
+    commit.setTreeId(ObjectId.zeroId());
+    commit.setAuthor(person);
+    commit.setCommitter(person);
+    commit.setEncoding(encoding);
+    commit.setMessage(message);
+    return commit.build();
+  }
+}
@@ -24,6 +24,14 @@ public class ReckonerTest {
     assertThrows(IllegalArgumentException.class, () -> Reckoner.builder().stages("snapshot", "beta", "final"));
   }
 
+  @Test
+  @DisplayName("if walk limits are less than 1 or have no policy, throw")
+  public void invalidWalkLimitsThrow() {
+    assertThrows(IllegalArgumentException.class, () -> Reckoner.builder().maxWalkDepth(0, WalkLimitPolicy.FAIL));
+    assertThrows(NullPointerException.class, () -> Reckoner.builder().maxWalkDepth(1, null));
+    assertThrows(IllegalArgumentException.class, () -> Reckoner.builder().maxRetainedCommits(0));
+  }
+
   @ParameterizedTest
   @ValueSource(strings = {"BeTa", "Milestone", "rc", "fINal"})
   @DisplayName("stages are lowercased")
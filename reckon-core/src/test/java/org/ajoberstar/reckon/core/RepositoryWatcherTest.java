@@ -0,0 +1,191 @@
+package org.ajoberstar.reckon.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RepositoryWatcherTest {
+  @Test
+  @DisplayName("the working tree is only checked again once something in it changes")
+  public void cleanReusedUntilChanged(@TempDir Path repoDir) throws IOException, GitAPIException, InterruptedException {
+    try (var git = TestRepositories.init(repoDir)) {
+      Files.createDirectories(repoDir.resolve("src"));
+      Files.writeString(repoDir.resolve("src/file.txt"), "committed");
+      git.add().addFilepattern("src/file.txt").call();
+      git.commit().setMessage("first").call();
+
+      try (var watcher = RepositoryWatcher.of(git.getRepository())) {
+        var checks = new AtomicInteger();
+        var statusCheck = new GitStatusCheck(git.getRepository());
+        BooleanSupplier check = () -> {
+          checks.incrementAndGet();
+          return statusCheck.isClean();
+        };
+
+        assertTrue(watcher.isClean(check));
+        assertTrue(watcher.isClean(check));
+        assertEquals(1, checks.get());
+
+        // including directories created after watching started
+        Files.createDirectories(repoDir.resolve("src/nested"));
+        await(() -> {
+          var clean = watcher.isClean(check);
+          return clean && checks.get() > 1;
+        });
+        Files.writeString(repoDir.resolve("src/nested/new.txt"), "not committed");
+        await(() -> !watcher.isClean(check));
+
+        // let any further events for the same change arrive
+        Thread.sleep(500);
+        watcher.isClean(check);
+        var settled = checks.get();
+        assertFalse(watcher.isClean(check));
+        assertEquals(settled, checks.get());
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("inventories are reused until a ref changes")
+  public void inventoryReusedUntilRefsChange(@TempDir Path repoDir) throws IOException, GitAPIException, InterruptedException {
+    try (var git = TestRepositories.init(repoDir)) {
+      git.commit().setMessage("first").setAllowEmpty(true).call();
+      git.tag().setName("1.0.0").call();
+
+      try (var watcher = RepositoryWatcher.of(git.getRepository())) {
+        var supplier = GitInventorySupplier.builder(git.getRepository(), VersionTagParser.getDefault()).watcher(watcher).build();
+        var first = supplier.getInventory();
+        var refChanges = watcher.getRefChanges().getAsLong();
+        var metrics = supplier.getMetrics();
+        assertEquals(first, supplier.getInventory());
+        // reused without walking again
+        assertSame(metrics, supplier.getMetrics());
+
+        git.tag().setName("1.1.0").call();
+        await(() -> watcher.getRefChanges().getAsLong() != refChanges);
+        var tagged = supplier.getInventory();
+        assertNotEquals(first, tagged);
+        assertEquals(new GitInventorySupplier(git.getRepository(), VersionTagParser.getDefault()).getInventory(), tagged);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("inventories are reused by later suppliers with the same settings")
+  public void inventoryReusedAcrossSuppliers(@TempDir Path repoDir) throws IOException, GitAPIException {
+    try (var git = TestRepositories.init(repoDir)) {
+      git.commit().setMessage("first").setAllowEmpty(true).call();
+      git.tag().setName("1.0.0").call();
+      git.commit().setMessage("second").setAllowEmpty(true).call();
+
+      try (var watcher = RepositoryWatcher.of(git.getRepository())) {
+        var first = GitInventorySupplier.builder(git.getRepository(), VersionTagParser.getDefault()).watcher(watcher).build();
+        var expected = first.getInventory();
+
+        // as when each build opens the repository again
+        try (var reopened = new FileRepositoryBuilder().setGitDir(git.getRepository().getDirectory()).build()) {
+          var later = GitInventorySupplier.builder(reopened, VersionTagParser.getDefault()).watcher(watcher).build();
+          var reused = later.getInventory();
+          assertEquals(expected, reused);
+          assertEquals(List.of("second"), reused.getCommitMessages());
+          // nothing was walked
+          assertNull(later.getMetrics());
+
+          var firstParent = GitInventorySupplier.builder(reopened, VersionTagParser.getDefault()).watcher(watcher).firstParent(true).build();
+          firstParent.getInventory();
+          assertNotNull(firstParent.getMetrics());
+        }
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("ignored directories aren't watched")
+  public void ignoredDirectoriesNotWatched(@TempDir Path repoDir) throws IOException, GitAPIException, InterruptedException {
+    try (var git = TestRepositories.init(repoDir)) {
+      Files.writeString(repoDir.resolve(".gitignore"), "build/\n");
+      git.add().addFilepattern(".gitignore").call();
+      git.commit().setMessage("first").call();
+      Files.createDirectories(repoDir.resolve("build/classes"));
+
+      try (var watcher = RepositoryWatcher.of(git.getRepository())) {
+        var checks = new AtomicInteger();
+        var statusCheck = new GitStatusCheck(git.getRepository());
+        BooleanSupplier check = () -> {
+          checks.incrementAndGet();
+          return statusCheck.isClean();
+        };
+
+        assertTrue(watcher.isClean(check));
+        Files.writeString(repoDir.resolve("build/classes/Output.class"), "built");
+        // give the change time to arrive, if it were watched
+        Thread.sleep(500);
+        assertTrue(watcher.isClean(check));
+        assertEquals(1, checks.get());
+
+        // no longer ignored, so watched from then on
+        Files.writeString(repoDir.resolve(".gitignore"), "");
+        await(() -> !watcher.isClean(check));
+        Thread.sleep(500);
+        watcher.isClean(check);
+        var settled = checks.get();
+        Files.writeString(repoDir.resolve("build/classes/Other.class"), "built");
+        await(() -> !watcher.isClean(check) && checks.get() > settled);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("refs of a linked worktree are watched in the repository's common directory")
+  public void linkedWorktreeRefsWatched(@TempDir Path repoDir, @TempDir Path worktreeDir) throws IOException, GitAPIException, InterruptedException {
+    try (var git = TestRepositories.init(repoDir)) {
+      git.commit().setMessage("first").setAllowEmpty(true).call();
+
+      // laid out like git worktree add does, which JGit can't do itself
+      var worktreeGitDir = repoDir.resolve(".git/worktrees/linked");
+      Files.createDirectories(worktreeGitDir);
+      Files.writeString(worktreeGitDir.resolve("commondir"), "../..\n");
+      Files.writeString(worktreeGitDir.resolve("HEAD"), git.getRepository().resolve("HEAD").name() + "\n");
+      Files.writeString(worktreeDir.resolve(".git"), "gitdir: " + worktreeGitDir + "\n");
+
+      var linked = new FileRepositoryBuilder().setGitDir(worktreeGitDir.toFile()).setWorkTree(worktreeDir.toFile()).build();
+      try (linked; var watcher = RepositoryWatcher.of(linked)) {
+        var refChanges = watcher.getRefChanges().getAsLong();
+        git.tag().setName("1.0.0").call();
+        await(() -> watcher.getRefChanges().getAsLong() != refChanges);
+
+        var tagged = watcher.getRefChanges().getAsLong();
+        git.gc().call();
+        await(() -> watcher.getRefChanges().getAsLong() != tagged);
+      }
+    }
+  }
+
+  // the watch service reports changes asynchronously
+  private void await(BooleanSupplier condition) throws InterruptedException {
+    var deadline = Instant.now().plus(Duration.ofSeconds(30));
+    while (!condition.getAsBoolean()) {
+      assertTrue(Instant.now().isBefore(deadline), "Timed out waiting for change to be noticed");
+      Thread.sleep(50);
+    }
+  }
+}
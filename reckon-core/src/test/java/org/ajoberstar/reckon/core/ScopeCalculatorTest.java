@@ -2,8 +2,12 @@ package org.ajoberstar.reckon.core;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -46,6 +50,32 @@ public class ScopeCalculatorTest {
     assertEquals(Optional.of(Scope.MAJOR), calc.calculate(inventoryMultiMatchPre1Force), "Before 1.0, can force 1.0 using major! as a prefix");
   }
 
+  @Test
+  @DisplayName("commit messages after a MAJOR one aren't read")
+  public void ofCommitMessageStopsAtMajor() {
+    var read = new ArrayList<String>();
+    var closed = new AtomicBoolean();
+    var inventory = new VcsInventory(
+        null,
+        false,
+        null,
+        null,
+        Version.valueOf("1.2.3"),
+        4,
+        () -> null,
+        () -> null,
+        () -> Stream.of("patch: some fix", "major: breaking change", "minor: some feature", "some message")
+            .peek(read::add)
+            .map(CommitMessage::ofText)
+            .onClose(() -> closed.set(true)),
+        false);
+
+    var calc = ScopeCalculator.ofCommitMessages();
+    assertEquals(Optional.of(Scope.MAJOR), calc.calculate(inventory));
+    assertEquals(List.of("patch: some fix", "major: breaking change"), read);
+    assertTrue(closed.get(), "Should close the stream of messages");
+  }
+
   private VcsInventory getInventoryWithMessages(Version baseNormal, String... messages) {
     return new VcsInventory(
         null,
@@ -0,0 +1,32 @@
+package org.ajoberstar.reckon.core;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+
+/**
+ * Sets up repositories for tests that need one of their own.
+ */
+final class TestRepositories {
+  private TestRepositories() {}
+
+  /**
+   * Initializes a repository in the directory that never signs commits or tags, whatever the user's
+   * global config says.
+   */
+  static Git init(Path dir) throws IOException, GitAPIException {
+    var git = Git.init().setDirectory(dir.toFile()).call();
+    try {
+      var config = git.getRepository().getConfig();
+      config.setString("commit", null, "gpgSign", "false");
+      config.setString("tag", null, "gpgSign", "false");
+      config.save();
+      return git;
+    } catch (IOException e) {
+      git.close();
+      throw e;
+    }
+  }
+}
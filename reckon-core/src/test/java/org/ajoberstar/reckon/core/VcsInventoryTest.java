@@ -0,0 +1,51 @@
+package org.ajoberstar.reckon.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class VcsInventoryTest {
+  @Test
+  @DisplayName("parallel normals, claimed versions, and commit messages are calculated once, when first asked for")
+  public void facetsCalculatedLazily() {
+    var calculated = new AtomicInteger();
+    var inventory = new VcsInventory(
+        "abcdef",
+        true,
+        null,
+        Version.valueOf("1.0.0"),
+        Version.valueOf("1.0.0"),
+        1,
+        () -> {
+          calculated.incrementAndGet();
+          return Set.of(Version.valueOf("1.1.0"));
+        },
+        () -> {
+          calculated.incrementAndGet();
+          return Set.of(Version.valueOf("1.0.0"));
+        },
+        () -> {
+          calculated.incrementAndGet();
+          return Stream.of("fix: thing").map(CommitMessage::ofText);
+        },
+        false);
+
+    assertEquals(Version.valueOf("1.0.0"), inventory.getBaseNormal());
+    assertEquals(0, calculated.get());
+
+    assertEquals(List.of("fix: thing"), inventory.getCommitMessages());
+    assertEquals(List.of("fix: thing"), inventory.getCommitMessages());
+    assertEquals(1, calculated.get());
+
+    var eager = new VcsInventory("abcdef", true, null, Version.valueOf("1.0.0"), Version.valueOf("1.0.0"), 1, Set.of(Version.valueOf("1.1.0")), Set.of(Version.valueOf("1.0.0")), List.of("fix: thing"), false);
+    assertEquals(eager, inventory);
+    assertEquals(eager.hashCode(), inventory.hashCode());
+    assertEquals(3, calculated.get());
+  }
+}
@@ -30,7 +30,7 @@ dependencies {
   api(project(":reckon-core"))
 
   // git
-  implementation("org.eclipse.jgit:org.eclipse.jgit:[6.0,7.0[")
+  implementation("org.eclipse.jgit:org.eclipse.jgit:[6.5,7.0[")
 }
 
 testing {
@@ -40,7 +40,7 @@ testing {
 
       dependencies {
         implementation(gradleTestKit())
-        implementation("org.eclipse.jgit:org.eclipse.jgit:[6.0,7.0[")
+        implementation("org.eclipse.jgit:org.eclipse.jgit:[6.5,7.0[")
       }
     }
   }
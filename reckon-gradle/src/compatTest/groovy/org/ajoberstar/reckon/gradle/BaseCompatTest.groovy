@@ -355,6 +355,32 @@ reckon {
     result.task(':reckonTagPush').outcome == TaskOutcome.SUCCESS
   }
 
+  def 'maintenance packs tag refs and writes commit-graph'() {
+    given:
+    def local = Gits.clone(projectDir, remote)
+
+    buildFile << """
+plugins {
+  id 'org.ajoberstar.reckon'
+}
+
+reckon {
+  defaultInferredScope = 'minor'
+  scopeFromProp()
+  stageFromProp('alpha','beta', 'final')
+}
+"""
+    Gits.commitAll(local)
+    when:
+    def result = build('reckonMaintain', '--configuration-cache')
+    then:
+    result.task(':reckonMaintain').outcome == TaskOutcome.SUCCESS
+    result.output.contains('Reckon inference took')
+    and:
+    new File(projectDir, '.git/objects/info/commit-graph').exists()
+    !new File(projectDir, '.git/refs/tags/1.0.0').exists()
+  }
+
   private BuildResult build(String... args = []) {
     return GradleRunner.create()
       .withGradleVersion(System.properties['compat.gradle.version'])
@@ -1,6 +1,10 @@
 package org.ajoberstar.reckon.gradle;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 
 import javax.inject.Inject;
@@ -10,6 +14,7 @@ import org.eclipse.jgit.lib.Config;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.storage.file.FileBasedConfig;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.submodule.SubmoduleWalk.IgnoreSubmoduleMode;
 import org.eclipse.jgit.util.FS;
 import org.eclipse.jgit.util.SystemReader;
 import org.gradle.api.file.DirectoryProperty;
@@ -33,6 +38,10 @@ public class ReckonExtension {
 
   private VersionTagParser tagParser;
   private VersionTagWriter tagWriter;
+  private boolean cacheInventory;
+  private boolean cacheScopes;
+  private boolean parallelStatus;
+  private boolean watchRepository;
   private final Provider<String> tagName;
 
   private final Property<String> tagMessage;
@@ -142,6 +151,50 @@ public class ReckonExtension {
     return this;
   }
 
+  public void setCacheInventory(boolean cacheInventory) {
+    this.cacheInventory = cacheInventory;
+  }
+
+  public void setCacheScopes(boolean cacheScopes) {
+    this.cacheScopes = cacheScopes;
+  }
+
+  public void setClockSkewWindow(Duration clockSkewWindow) {
+    this.reckonerBuilder.clockSkewWindow(clockSkewWindow);
+  }
+
+  public void maxWalkDepth(int maxWalkDepth, String walkLimitPolicy) {
+    this.reckonerBuilder.maxWalkDepth(maxWalkDepth, WalkLimitPolicy.valueOf(walkLimitPolicy.toUpperCase()));
+  }
+
+  public void setMaxRetainedCommits(int maxRetainedCommits) {
+    this.reckonerBuilder.maxRetainedCommits(maxRetainedCommits);
+  }
+
+  public void setFirstParent(boolean firstParent) {
+    this.reckonerBuilder.firstParent(firstParent);
+  }
+
+  public void setUntrackedFiles(boolean untrackedFiles) {
+    this.reckonerBuilder.untrackedFiles(untrackedFiles);
+  }
+
+  public void setIgnoreSubmodules(String ignoreSubmodules) {
+    this.reckonerBuilder.ignoreSubmodules(IgnoreSubmoduleMode.valueOf(ignoreSubmodules.toUpperCase()));
+  }
+
+  public void statusPaths(List<String> includes, List<String> excludes) {
+    this.reckonerBuilder.statusPaths(includes, excludes);
+  }
+
+  public void setParallelStatus(boolean parallelStatus) {
+    this.parallelStatus = parallelStatus;
+  }
+
+  public void setWatchRepository(boolean watchRepository) {
+    this.watchRepository = watchRepository;
+  }
+
   public Property<String> getRemote() {
     return remote;
   }
@@ -184,8 +237,19 @@ public class ReckonExtension {
     var oldSystemReader = SystemReader.getInstance();
     var workaroundSystemReader = workaroundSystemReader(oldSystemReader);
     SystemReader.setInstance(workaroundSystemReader);
+    // threads of reckon's own, so the status check neither competes with Gradle's use of the common pool
+    // nor waits on the scans it splits off from inside the pool running them
+    var statusExecutor = parallelStatus ? Executors.newSingleThreadExecutor(ReckonExtension::newStatusThread) : null;
+    var statusPool = parallelStatus ? new ForkJoinPool() : null;
     try (var repo = openRepo()) {
       reckonerBuilder.git(repo, tagParser);
+      reckonerBuilder.inventoryCache(cacheInventory && repo != null ? VcsInventoryCache.ofRepository(repo) : null);
+      reckonerBuilder.scopeCache(cacheScopes && repo != null ? CommitScopeCache.ofRepository(repo) : null);
+      // kept for as long as the daemon keeps building the repository
+      reckonerBuilder.watcher(watchRepository && repo != null ? RepositoryWatchers.of(repo) : null);
+      // check status while the history is walked, and split up by top-level directory
+      reckonerBuilder.statusExecutor(statusExecutor);
+      reckonerBuilder.statusPool(statusPool);
 
       Reckoner reckoner;
       try {
@@ -198,10 +262,20 @@ public class ReckonExtension {
       logger.warn("Reckoned version: {}", version);
       return version;
     } finally {
+      if (parallelStatus) {
+        statusExecutor.shutdown();
+        statusPool.shutdown();
+      }
       SystemReader.setInstance(oldSystemReader);
     }
   }
 
+  private static Thread newStatusThread(Runnable runnable) {
+    var thread = new Thread(runnable, "reckon-status");
+    thread.setDaemon(true);
+    return thread;
+  }
+
   private Repository openRepo() {
     try {
       var builder = new FileRepositoryBuilder();
@@ -0,0 +1,37 @@
+package org.ajoberstar.reckon.gradle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.ajoberstar.reckon.core.GitMaintenance;
+import org.ajoberstar.reckon.core.VersionTagParser;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.tasks.*;
+
+@UntrackedTask(because = "Git tracks the state")
+public abstract class ReckonMaintainTask extends DefaultTask {
+  @TaskAction
+  public void maintain() {
+    var builder = new FileRepositoryBuilder();
+    builder.readEnvironment();
+    builder.findGitDir(getRepoDirectory().getAsFile().get());
+    if (builder.getGitDir() == null) {
+      throw new IllegalStateException("No .git directory found!");
+    }
+
+    try (var repo = builder.build()) {
+      // custom tag parsers can't be passed to tasks, but only affect which tags are skipped
+      var report = GitMaintenance.maintain(repo, VersionTagParser.getDefault());
+      getLogger().lifecycle("Reckon inference took {} ms before maintenance and {} ms after.",
+          report.getInferenceBefore().toMillis(),
+          report.getInferenceAfter().toMillis());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Internal
+  public abstract DirectoryProperty getRepoDirectory();
+}
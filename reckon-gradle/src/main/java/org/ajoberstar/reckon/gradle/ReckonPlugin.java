@@ -17,6 +17,7 @@ public class ReckonPlugin implements Plugin<Project> {
 
   public static final String TAG_TASK = "reckonTagCreate";
   public static final String PUSH_TASK = "reckonTagPush";
+  public static final String MAINTAIN_TASK = "reckonMaintain";
 
   private static final String SCOPE_PROP = "reckon.scope";
   private static final String STAGE_PROP = "reckon.stage";
@@ -48,6 +49,8 @@ public class ReckonPlugin implements Plugin<Project> {
     var tag = createTagTask(project, extension);
     var push = createPushTask(project, extension);
     push.configure(t -> t.dependsOn(tag));
+
+    createMaintainTask(project, extension);
   }
 
   private TaskProvider<ReckonCreateTagTask> createTagTask(Project project, ReckonExtension extension) {
@@ -70,6 +73,14 @@ public class ReckonPlugin implements Plugin<Project> {
     });
   }
 
+  private TaskProvider<ReckonMaintainTask> createMaintainTask(Project project, ReckonExtension extension) {
+    return project.getTasks().register(MAINTAIN_TASK, ReckonMaintainTask.class, task -> {
+      task.setDescription("Packs refs and writes commit-graph and bitmaps, so reckon can infer the version faster.");
+      task.setGroup("build setup");
+      task.getRepoDirectory().set(extension.getRepoDirectory());
+    });
+  }
+
   private static class DelayedVersion {
     private final Provider<Version> versionProvider;
     private final AtomicBoolean warned;
@@ -0,0 +1,124 @@
+package org.ajoberstar.reckon.gradle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.ajoberstar.reckon.core.RepositoryWatcher;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+/**
+ * Keeps a {@link RepositoryWatcher} for each repository for as long as the Gradle daemon keeps
+ * building it, so later builds can reuse what earlier ones found out. Each watcher has its own
+ * connection to the repository, as the build's is closed once the version is reckoned. Watchers that
+ * haven't been used for a while are closed, so they don't hold on to the platform's watches once the
+ * repository isn't built anymore, or once a change to the build's classpath leaves them behind.
+ * <p>
+ * This is intentionally package private.
+ */
+final class RepositoryWatchers {
+  private static final Logger logger = Logging.getLogger(RepositoryWatchers.class);
+
+  private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+  private static final Map<Path, Watched> watchers = new HashMap<>();
+  private static final ScheduledThreadPoolExecutor closer = newCloser();
+
+  private RepositoryWatchers() {}
+
+  private static ScheduledThreadPoolExecutor newCloser() {
+    var closer = new ScheduledThreadPoolExecutor(1, runnable -> {
+      var thread = new Thread(runnable, "reckon-watcher-closer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    // once every watcher is closed, nothing is left keeping this class loaded
+    closer.setKeepAliveTime(1, TimeUnit.MINUTES);
+    closer.allowCoreThreadTimeOut(true);
+    closer.setRemoveOnCancelPolicy(true);
+    return closer;
+  }
+
+  /**
+   * The watcher of the given repository, starting to watch it if not already.
+   */
+  static synchronized RepositoryWatcher of(Repository repo) {
+    var gitDir = repo.getDirectory().toPath();
+    var watched = watchers.get(gitDir);
+    if (watched == null) {
+      logger.info("Watching {} for changes, to reuse what's found out about it in later builds.", gitDir);
+      watched = new Watched(open(repo));
+      watchers.put(gitDir, watched);
+    }
+    watched.used();
+    closer.schedule(() -> closeIfIdle(gitDir), IDLE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    return watched.getWatcher();
+  }
+
+  private static Repository open(Repository repo) {
+    try {
+      var builder = new FileRepositoryBuilder().setGitDir(repo.getDirectory());
+      if (repo.isBare()) {
+        builder.setBare();
+      } else {
+        builder.setWorkTree(repo.getWorkTree());
+      }
+      return builder.build();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static synchronized void closeIfIdle(Path gitDir) {
+    var watched = watchers.get(gitDir);
+    if (watched != null && watched.isIdle()) {
+      logger.info("Stopped watching {} for changes, as it hasn't been built in {}.", gitDir, IDLE_TIMEOUT);
+      watchers.remove(gitDir);
+      watched.close();
+    }
+  }
+
+  private static class Watched {
+    private final Repository repo;
+    private final RepositoryWatcher watcher;
+    private long lastUsed;
+
+    public Watched(Repository repo) {
+      this.repo = repo;
+      try {
+        this.watcher = RepositoryWatcher.of(repo);
+      } catch (RuntimeException e) {
+        repo.close();
+        throw e;
+      }
+    }
+
+    public RepositoryWatcher getWatcher() {
+      return watcher;
+    }
+
+    public void used() {
+      this.lastUsed = System.nanoTime();
+    }
+
+    public boolean isIdle() {
+      return System.nanoTime() - lastUsed >= IDLE_TIMEOUT.toNanos();
+    }
+
+    public void close() {
+      try {
+        watcher.close();
+      } finally {
+        repo.close();
+      }
+    }
+  }
+}